@@ -0,0 +1,46 @@
+package com.flexisaf.FlexiSAF_wk7.jmh;
+
+import com.flexisaf.FlexiSAF_wk7.FlexiSafWk7Application;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+/**
+ * Boots the application without a web server on the test profile (in-memory H2, schema from the Flyway
+ * migrations), so benchmarks call the real service and repository beans.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FlexiSafWk7Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Arguments rather than default properties, so they win over the test application.properties
+                .run("--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    static Employee employee(String email) {
+        Employee employee = new Employee();
+        employee.setFirstName("Bench");
+        employee.setLastName("Marker");
+        employee.setEmail(email);
+        employee.setPhoneNumber("08030000000");
+        employee.setDepartment("Engineering");
+        employee.setPosition("Software Engineer");
+        employee.setSalary(75000.0);
+        employee.setDateofHire(LocalDate.of(2023, 1, 15));
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        employee.setAddress("12 Allen Avenue, Ikeja, Lagos");
+        return employee;
+    }
+}
@@ -0,0 +1,92 @@
+package com.flexisaf.FlexiSAF_wk7.jmh;
+
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaveRequestServiceBenchmark {
+
+    private static final int EMPLOYEES = 100;
+    private static final int REVIEWED_LEAVES = 500;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private LeaveRequestService leaveRequestService;
+    private List<Employee> employees;
+    private List<Long> pendingIds;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        leaveRequestService = context.getBean(LeaveRequestService.class);
+        EmployeeService employeeService = context.getBean(EmployeeService.class);
+
+        employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(employeeService.createEmployee(BenchmarkContext.employee("leave" + i + "@flexisaf.com")));
+        }
+        pendingIds = new ArrayList<>();
+        for (int i = 0; i < REVIEWED_LEAVES; i++) {
+            pendingIds.add(leaveRequestService.applyLeaveRequest(nextLeave()).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LeaveRequest applyLeaveRequest() {
+        return leaveRequestService.applyLeaveRequest(nextLeave());
+    }
+
+    // Flips a pool of leaves between approved and rejected, so every call is a real status change
+    @Benchmark
+    public LeaveRequest reviewLeaveRequest() {
+        long n = sequence.incrementAndGet();
+        LeaveRequest review = new LeaveRequest();
+        review.setStatus((n / REVIEWED_LEAVES) % 2 == 0 ? LeaveRequest.LeaveStatus.APPROVED : LeaveRequest.LeaveStatus.REJECTED);
+        review.setManagerComment("Reviewed");
+        return leaveRequestService.reviewLeaveRequest(pendingIds.get((int) (n % REVIEWED_LEAVES)), review);
+    }
+
+    // Round-robin over the employees, each leave two days after that employee's previous one, so none overlap
+    private LeaveRequest nextLeave() {
+        long n = sequence.incrementAndGet();
+        LocalDate start = LocalDate.of(2030, 1, 1).plusDays(2 * (n / EMPLOYEES));
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employees.get((int) (n % EMPLOYEES)));
+        leave.setStartDate(start);
+        leave.setEndDate(start);
+        leave.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+        leave.setReason("Benchmark");
+        return leave;
+    }
+}
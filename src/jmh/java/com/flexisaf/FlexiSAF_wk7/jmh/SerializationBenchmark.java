@@ -0,0 +1,97 @@
+package com.flexisaf.FlexiSAF_wk7.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips of employee lists and of leave requests with their embedded employee, using the
+ * application's ObjectMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<Employee>> EMPLOYEES = new TypeReference<>() { };
+    private static final TypeReference<List<LeaveRequest>> LEAVES = new TypeReference<>() { };
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Employee> employees;
+    private List<LeaveRequest> leaves;
+    private byte[] employeesJson;
+    private byte[] leavesJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            objectMapper = context.getBean(ObjectMapper.class);
+        }
+        employees = new ArrayList<>();
+        leaves = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Employee employee = BenchmarkContext.employee("employee" + i + "@flexisaf.com");
+            employee.setId((long) i + 1);
+            employees.add(employee);
+
+            LeaveRequest leave = new LeaveRequest();
+            leave.setId((long) i + 1);
+            leave.setEmployee(employee);
+            leave.setStartDate(LocalDate.of(2025, 1, 1).plusDays(i % 365));
+            leave.setEndDate(leave.getStartDate().plusDays(5));
+            leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+            leave.setStatus(LeaveRequest.LeaveStatus.APPROVED);
+            leave.setReason("Family vacation");
+            leave.setManagerComment("Approved");
+            leave.setDateApplied(leave.getStartDate().minusDays(14));
+            leave.setDateReviewed(leave.getStartDate().minusDays(10));
+            leaves.add(leave);
+        }
+        employeesJson = objectMapper.writeValueAsBytes(employees);
+        leavesJson = objectMapper.writeValueAsBytes(leaves);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployees() throws Exception {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public List<Employee> deserializeEmployees() throws Exception {
+        return objectMapper.readValue(employeesJson, EMPLOYEES);
+    }
+
+    @Benchmark
+    public byte[] serializeLeaveRequests() throws Exception {
+        return objectMapper.writeValueAsBytes(leaves);
+    }
+
+    @Benchmark
+    public List<LeaveRequest> deserializeLeaveRequests() throws Exception {
+        return objectMapper.readValue(leavesJson, LEAVES);
+    }
+}
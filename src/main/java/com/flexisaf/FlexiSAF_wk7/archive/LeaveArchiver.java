@@ -0,0 +1,182 @@
+package com.flexisaf.FlexiSAF_wk7.archive;
+
+import com.flexisaf.FlexiSAF_wk7.dto.ClosedLeave;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSpan;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions.Collection;
+import com.flexisaf.FlexiSAF_wk7.index.DepartmentAvailabilityIndex;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveIntervalIndex;
+import com.flexisaf.FlexiSAF_wk7.repository.ArchivedLeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves closed leave requests (rejected, cancelled, or approved) whose leave ended more than
+ * {@code app.leave-archive.horizon} ago from {@code leave_requests} to {@code leave_requests_archive}, so the live
+ * table and its indexes only hold leave that can still change or matter for planning.
+ *
+ * <p>Each chunk of {@code app.leave-archive.chunk-size} rows is copied and deleted in its own short transaction,
+ * skipping rows a request has locked. A run moves at most {@code app.leave-archive.max-chunks} chunks, sleeps
+ * {@code app.leave-archive.pause} between them, and stops early while requests are queueing for a database
+ * connection, in the pool or in front of the bulkhead; whatever is left is picked up by the next run. A run that
+ * starts while another is still going returns straight away.
+ */
+@Component
+@ConditionalOnProperty(name = "app.leave-archive.enabled", matchIfMissing = true)
+public class LeaveArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveArchiver.class);
+
+    private static final Set<LeaveRequest.LeaveStatus> CLOSED_STATUSES = EnumSet.of(LeaveRequest.LeaveStatus.APPROVED,
+            LeaveRequest.LeaveStatus.REJECTED, LeaveRequest.LeaveStatus.CANCELLED);
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final ArchivedLeaveRequestRepository archivedLeaveRequestRepository;
+    private final LeaveIntervalIndex leaveIntervalIndex;
+    private final DepartmentAvailabilityIndex departmentAvailabilityIndex;
+    private final LeaveCounters leaveCounters;
+    private final CollectionVersions collectionVersions;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Duration pause;
+    private final Counter archived;
+    // Not a monitor: a virtual thread sleeping between chunks inside synchronized would pin its carrier
+    private final ReentrantLock running = new ReentrantLock();
+
+    public LeaveArchiver(LeaveRequestRepository leaveRequestRepository,
+                         ArchivedLeaveRequestRepository archivedLeaveRequestRepository,
+                         LeaveIntervalIndex leaveIntervalIndex, DepartmentAvailabilityIndex departmentAvailabilityIndex,
+                         LeaveCounters leaveCounters, CollectionVersions collectionVersions,
+                         MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+                         @Value("${app.leave-archive.horizon:365d}") Duration horizon,
+                         @Value("${app.leave-archive.chunk-size:500}") int chunkSize,
+                         @Value("${app.leave-archive.max-chunks:20}") int maxChunks,
+                         @Value("${app.leave-archive.pause:200ms}") Duration pause) {
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.archivedLeaveRequestRepository = archivedLeaveRequestRepository;
+        this.leaveIntervalIndex = leaveIntervalIndex;
+        this.departmentAvailabilityIndex = departmentAvailabilityIndex;
+        this.leaveCounters = leaveCounters;
+        this.collectionVersions = collectionVersions;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizon = horizon;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.pause = pause;
+        this.archived = Counter.builder("app.leave-archive.archived")
+                .description("Leave requests moved to the archive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archives up to {@code max-chunks} chunks of closed leave requests older than the horizon.
+     *
+     * @return the number of leave requests archived
+     */
+    @Scheduled(fixedDelayString = "${app.leave-archive.interval:1h}",
+            initialDelayString = "${app.leave-archive.interval:1h}")
+    public int archive() {
+        if (!running.tryLock()) {
+            log.debug("An archive run is already in progress; skipping this one");
+            return 0;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(horizon.toDays());
+            int total = 0;
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                if (chunk > 0 && !pause()) {
+                    break;
+                }
+                if (connectionsPending() > 0) {
+                    log.debug("Requests are waiting for database connections; leaving the rest of the archive run for later");
+                    break;
+                }
+                List<ClosedLeave> moved = archiveChunk(cutoff);
+                total += moved.size();
+                if (moved.size() < chunkSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("Archived {} leave requests that ended before {}", total, cutoff);
+            }
+            return total;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private List<ClosedLeave> archiveChunk(LocalDate cutoff) {
+        List<ClosedLeave> moved = transactionTemplate.execute(status -> {
+            List<ClosedLeave> chunk = leaveRequestRepository.lockClosedBefore(CLOSED_STATUSES, cutoff, Limit.of(chunkSize));
+            if (!chunk.isEmpty()) {
+                List<Long> ids = chunk.stream().map(ClosedLeave::id).toList();
+                archivedLeaveRequestRepository.copyFromLeaveRequests(ids, Instant.now());
+                leaveRequestRepository.deleteAllByIdInBatch(ids);
+                chunk.forEach(leave -> leaveCounters.record(leave.employeeId(), leave.department(),
+                        leave.leaveType(), leave.status(), null));
+            }
+            return chunk;
+        });
+
+        for (ClosedLeave leave : moved) {
+            leaveIntervalIndex.syncIfLoaded(leave.employeeId(), leave.id(), leave.startDate(), leave.endDate(), null);
+            if (leave.status() == LeaveRequest.LeaveStatus.APPROVED) {
+                departmentAvailabilityIndex.remove(
+                        new LeaveSpan(leave.employeeId(), leave.department(), leave.startDate(), leave.endDate()));
+            }
+        }
+        if (!moved.isEmpty()) {
+            collectionVersions.bump(Collection.LEAVES);
+            archived.increment(moved.size());
+        }
+        return moved;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Threads blocked in getConnection(): with the bulkhead on they queue for its permits and the pools see none
+    // of them, so whichever count is larger
+    private double connectionsPending() {
+        return Math.max(sum("hikaricp.connections.pending"), sum("app.datasource.bulkhead.pending"));
+    }
+
+    private double sum(String gauge) {
+        return meterRegistry.find(gauge).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+}
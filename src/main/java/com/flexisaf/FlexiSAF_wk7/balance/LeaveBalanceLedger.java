@@ -0,0 +1,169 @@
+package com.flexisaf.FlexiSAF_wk7.balance;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveBalance;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.exception.LeaveConflictException;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveBalanceRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code leave_balances} in step with leave requests. Pending leave holds days in {@code pending_days} and
+ * approved leave in {@code used_days}; rejected and cancelled leave holds none. Leave that spans New Year counts
+ * towards both years, and every calendar day of the leave counts.
+ *
+ * <p>Every method joins the caller's transaction and locks the balance rows it touches, so the totals commit or
+ * roll back with the leave change that caused them. A missing row is inserted empty, ignoring a conflicting insert,
+ * and then locked, so two transactions touching a row for the first time queue on it instead of racing to insert
+ * it.
+ */
+@Component
+public class LeaveBalanceLedger {
+
+    private static final int PENDING = 0;
+    private static final int USED = 1;
+
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveEntitlements entitlements;
+
+    public LeaveBalanceLedger(LeaveBalanceRepository leaveBalanceRepository, LeaveEntitlements entitlements) {
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.entitlements = entitlements;
+    }
+
+    /**
+     * Holds the days of a new leave request, or rejects it if any year it falls in would go past the entitlement.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long employeeId, LeaveRequest.LeaveType leaveType, LocalDate startDate, LocalDate endDate) {
+        Map<LeaveBalance.Key, int[]> deltas = deltas(List.of(new LeaveBalanceChange(employeeId, leaveType, startDate,
+                endDate, LeaveRequest.LeaveStatus.PENDING)));
+        Map<LeaveBalance.Key, LeaveBalance> balances = lock(deltas.keySet());
+        Integer entitlement = entitlements.of(leaveType);
+        if (entitlement != null) {
+            deltas.forEach((key, delta) -> {
+                LeaveBalance balance = balances.get(key);
+                int taken = balance.getPendingDays() + balance.getUsedDays();
+                if (taken + delta[PENDING] > entitlement) {
+                    throw new LeaveConflictException(String.format(
+                            "Not enough %s leave left in %d: %d of %d days remaining, %d requested",
+                            leaveType, key.getYear(), Math.max(0, entitlement - taken), entitlement, delta[PENDING]));
+                }
+            });
+        }
+        apply(balances, deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<LeaveBalanceChange> changes) {
+        Map<LeaveBalance.Key, int[]> deltas = deltas(changes);
+        deltas.values().removeIf(delta -> delta[PENDING] == 0 && delta[USED] == 0);
+        if (!deltas.isEmpty()) {
+            apply(lock(deltas.keySet()), deltas);
+        }
+    }
+
+    /**
+     * Replaces an employee's totals with the ones their leave history adds up to. The history is read only once
+     * every row it adds up to is locked, so a leave change committed before then is in it and one committed after
+     * waits for this transaction; if the history needs rows that did not exist yet, they are added and locked and
+     * the history is read again.
+     *
+     * @return the number of balance rows that were wrong
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int replace(Long employeeId, Supplier<List<LeaveBalanceChange>> history) {
+        Map<LeaveBalance.Key, LeaveBalance> balances = leaveBalanceRepository.lockByEmployeeId(employeeId).stream()
+                .collect(Collectors.toMap(LeaveBalance::getId, Function.identity()));
+        Map<LeaveBalance.Key, int[]> expected = deltas(history.get());
+        while (!balances.keySet().containsAll(expected.keySet())) {
+            balances.putAll(lock(expected.keySet().stream().filter(key -> !balances.containsKey(key)).toList()));
+            expected = deltas(history.get());
+        }
+        int corrected = 0;
+        for (LeaveBalance balance : balances.values()) {
+            int[] totals = expected.get(balance.getId());
+            int pending = totals == null ? 0 : totals[PENDING];
+            int used = totals == null ? 0 : totals[USED];
+            if (balance.getPendingDays() != pending || balance.getUsedDays() != used) {
+                balance.setPendingDays(pending);
+                balance.setUsedDays(used);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    // Days of [startDate, endDate] falling in each calendar year
+    static Map<Integer, Integer> daysByYear(LocalDate startDate, LocalDate endDate) {
+        Map<Integer, Integer> days = new TreeMap<>();
+        for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+            LocalDate from = year == startDate.getYear() ? startDate : LocalDate.of(year, 1, 1);
+            LocalDate to = year == endDate.getYear() ? endDate : LocalDate.of(year, 12, 31);
+            days.put(year, (int) ChronoUnit.DAYS.between(from, to) + 1);
+        }
+        return days;
+    }
+
+    private static Map<LeaveBalance.Key, int[]> deltas(Collection<LeaveBalanceChange> changes) {
+        Map<LeaveBalance.Key, int[]> deltas = new HashMap<>();
+        for (LeaveBalanceChange change : changes) {
+            daysByYear(change.startDate(), change.endDate()).forEach((year, days) -> {
+                int[] delta = deltas.computeIfAbsent(
+                        new LeaveBalance.Key(change.employeeId(), year, change.leaveType()), key -> new int[2]);
+                add(delta, change.from(), -days);
+                add(delta, change.to(), days);
+            });
+        }
+        return deltas;
+    }
+
+    private static void add(int[] delta, LeaveRequest.LeaveStatus status, int days) {
+        if (status == LeaveRequest.LeaveStatus.PENDING) {
+            delta[PENDING] += days;
+        } else if (status == LeaveRequest.LeaveStatus.APPROVED) {
+            delta[USED] += days;
+        }
+    }
+
+    // Locks the rows of the keys, inserting the ones that do not exist yet and locking those again
+    private Map<LeaveBalance.Key, LeaveBalance> lock(Collection<LeaveBalance.Key> keys) {
+        Map<LeaveBalance.Key, LeaveBalance> balances = lockExisting(keys);
+        List<LeaveBalance.Key> missing = keys.stream().filter(key -> !balances.containsKey(key)).toList();
+        if (!missing.isEmpty()) {
+            missing.forEach(key -> leaveBalanceRepository.insertIfAbsent(key.getEmployeeId(), key.getYear(),
+                    key.getLeaveType()));
+            balances.putAll(lockExisting(missing));
+        }
+        return balances;
+    }
+
+    // Locks a superset of the keys (every listed year for every listed employee) with one statement
+    private Map<LeaveBalance.Key, LeaveBalance> lockExisting(Collection<LeaveBalance.Key> keys) {
+        List<Long> employeeIds = keys.stream().map(LeaveBalance.Key::getEmployeeId).distinct().toList();
+        List<Integer> years = keys.stream().map(LeaveBalance.Key::getYear).distinct().toList();
+        return leaveBalanceRepository.lockByEmployeeIdInAndYearIn(employeeIds, years).stream()
+                .collect(Collectors.toMap(LeaveBalance::getId, Function.identity()));
+    }
+
+    private void apply(Map<LeaveBalance.Key, LeaveBalance> balances, Map<LeaveBalance.Key, int[]> deltas) {
+        deltas.forEach((key, delta) -> {
+            LeaveBalance balance = balances.get(key);
+            balance.setPendingDays(balance.getPendingDays() + delta[PENDING]);
+            balance.setUsedDays(balance.getUsedDays() + delta[USED]);
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.flexisaf.FlexiSAF_wk7.balance;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Days of leave each employee may take per calendar year, by leave type, from
+ * {@code app.leave-balance.entitlements.<TYPE>}. Types without an entry are tracked but not capped.
+ */
+@ConfigurationProperties("app.leave-balance")
+public record LeaveEntitlements(Map<LeaveRequest.LeaveType, Integer> entitlements) {
+
+    public LeaveEntitlements {
+        entitlements = entitlements == null || entitlements.isEmpty()
+                ? Map.of()
+                : new EnumMap<>(entitlements);
+    }
+
+    public Integer of(LeaveRequest.LeaveType leaveType) {
+        return entitlements.get(leaveType);
+    }
+}
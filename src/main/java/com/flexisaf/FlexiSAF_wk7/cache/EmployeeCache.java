@@ -0,0 +1,55 @@
+package com.flexisaf.FlexiSAF_wk7.cache;
+
+import com.flexisaf.FlexiSAF_wk7.dto.CacheStatistics;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded near-cache of employee summaries keyed by id. Only immutable summaries are cached, never managed
+ * entities, so a cached value can be shared between threads and outlive the persistence context it came from.
+ */
+@Component
+public class EmployeeCache {
+
+    private final Cache<Long, EmployeeSummary> cache;
+
+    public EmployeeCache(@Value("${app.employee-cache.maximum-size:10000}") long maximumSize,
+                         @Value("${app.employee-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<EmployeeSummary> get(Long id, Function<Long, Optional<EmployeeSummary>> loader) {
+        // Misses are not cached, so an employee created right after a failed lookup is seen immediately
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public EmployeeSummary getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStatistics stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount());
+    }
+}
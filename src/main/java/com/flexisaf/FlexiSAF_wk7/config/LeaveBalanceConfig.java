@@ -0,0 +1,10 @@
+package com.flexisaf.FlexiSAF_wk7.config;
+
+import com.flexisaf.FlexiSAF_wk7.balance.LeaveEntitlements;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LeaveEntitlements.class)
+public class LeaveBalanceConfig {
+}
@@ -0,0 +1,22 @@
+package com.flexisaf.FlexiSAF_wk7.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every public method of the classes annotated with {@code @Timed}, tagged with the class and method name.
+ * Percentiles and histogram buckets for those timers are configured in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String CONTROLLER_TIMER = "app.controller";
+    public static final String SERVICE_TIMER = "app.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -31,6 +31,9 @@ public class SecurityConfig {
                         //(You can restrict later to authenticated users)
                         .requestMatchers("/api/**").permitAll()
 
+                        //Health, metrics and the Prometheus scrape are read by monitoring without credentials
+                        .requestMatchers("/actuator/health", "/actuator/metrics/**", "/actuator/prometheus").permitAll()
+
                         //Require authentication for any other request
                         .anyRequest().authenticated()
                 )
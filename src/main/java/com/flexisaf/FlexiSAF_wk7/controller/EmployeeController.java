@@ -1,18 +1,38 @@
 package com.flexisaf.FlexiSAF_wk7.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flexisaf.FlexiSAF_wk7.config.MetricsConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.CacheStatistics;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeImportReport;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardResult;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.etag.ETags;
+import com.flexisaf.FlexiSAF_wk7.instrumentation.QueryBudget;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorHeaders;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
+import com.flexisaf.FlexiSAF_wk7.pagination.Cursors;
 import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import com.flexisaf.FlexiSAF_wk7.util.EmployeeCsvParser;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
+@Timed(MetricsConfig.CONTROLLER_TIMER)
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final EmployeeService employeeService;
 
     public EmployeeController(EmployeeService employeeService) {
@@ -20,31 +40,94 @@ public class EmployeeController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Employee>> getAllEmployees() {
-        List<Employee> employees = employeeService.getAllEmployees();
-        return ResponseEntity.ok(employees);
+    @QueryBudget(max = 1)
+    public ResponseEntity<List<EmployeeListItem>> getAllEmployees(@RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = "" + Cursors.DEFAULT_LIMIT) int limit,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read before the page so a concurrent write can only make the tag older than the body, never newer
+        String etag = ETags.of(employeeService.getCollectionVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<EmployeeListItem> page = employeeService.getEmployees(after, limit);
+        return ResponseEntity.ok().headers(CursorHeaders.of(page)).eTag(etag).body(page.items());
+    }
+    @GetMapping("/search")
+    @QueryBudget(max = 0)
+    public ResponseEntity<List<EmployeeSummary>> searchEmployees(@RequestParam String q,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(employeeService.searchEmployees(q, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(employeeService.getCacheStatistics());
     }
+
+    // One statement either way, plus the version probe when the client sends a tag that turns out to be stale
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id) {
+    @QueryBudget(max = 2)
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(employeeService.getEmployeeVersion(id));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         Employee employee = employeeService.getEmployeeById(id);
-        return ResponseEntity.ok(employee);
+        return ResponseEntity.ok().eTag(ETags.of(employee.getVersion())).body(employee);
     }
 
     @PostMapping
+    @QueryBudget(max = 3)
     public ResponseEntity<Employee> createEmployee(@Valid @RequestBody Employee employee) {
         Employee createdEmployee = employeeService.createEmployee(employee);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdEmployee);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<EmployeeImportReport> importEmployees(@RequestBody List<Employee> employees) {
+        return ResponseEntity.ok(employeeService.importEmployees(employees));
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<EmployeeImportReport> importEmployeesCsv(@RequestBody String csv) {
+        return ResponseEntity.ok(employeeService.importEmployees(EmployeeCsvParser.parse(csv)));
+    }
+
     @PutMapping("/{id}")
+    @QueryBudget(max = 2)
     public ResponseEntity<Employee> updateEmployee(@PathVariable Long id, @Valid @RequestBody  Employee employee) {
         Employee updatedEmployee = employeeService.updateEmployee(id, employee);
         return ResponseEntity.ok(updatedEmployee);
     }
 
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @QueryBudget(max = 2)
+    public ResponseEntity<Employee> patchEmployee(@PathVariable Long id, @RequestBody JsonNode patch) {
+        Employee patchedEmployee = employeeService.patchEmployee(id, patch);
+        return ResponseEntity.ok().eTag(ETags.of(patchedEmployee.getVersion())).body(patchedEmployee);
+    }
+
     @DeleteMapping("/{id}")
+    @QueryBudget(max = 3)
     public ResponseEntity<Void> deleteEmployee(@PathVariable Long id) {
         employeeService.deleteEmployee(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Soft offboarding also cancels open leave, writes its events to the outbox and releases its balance days,
+    // inserting and locking again any balance row that does not exist yet
+    @PostMapping("/{id}/offboard")
+    @QueryBudget(max = 11)
+    public ResponseEntity<OffboardResult> offboardEmployee(@PathVariable Long id,
+                                                           @RequestParam(defaultValue = "false") boolean purge) {
+        return ResponseEntity.ok(employeeService.offboardEmployee(id, purge));
+    }
+
+    @PostMapping("/offboard")
+    public ResponseEntity<OffboardResult> offboardEmployees(@Valid @RequestBody OffboardRequest request) {
+        return ResponseEntity.ok(employeeService.offboardEmployees(request));
+    }
 }
@@ -1,59 +1,197 @@
 package com.flexisaf.FlexiSAF_wk7.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flexisaf.FlexiSAF_wk7.config.MetricsConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewResult;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceSummary;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveDashboard;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSearchCriteria;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion;
+import com.flexisaf.FlexiSAF_wk7.dto.TeamAvailability;
 import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.etag.ETags;
+import com.flexisaf.FlexiSAF_wk7.instrumentation.QueryBudget;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorHeaders;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
+import com.flexisaf.FlexiSAF_wk7.pagination.Cursors;
 import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveBalanceService;
 import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
+@Timed(MetricsConfig.CONTROLLER_TIMER)
 @RequestMapping("/api/leaves")
 public class LeaveRequestController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final LeaveRequestService leaveRequestService;
     private final EmployeeService employeeService;
+    private final LeaveBalanceService leaveBalanceService;
+    private final ObjectMapper objectMapper;
 
-    public LeaveRequestController(LeaveRequestService leaveRequestService, EmployeeService employeeService) {
+    public LeaveRequestController(LeaveRequestService leaveRequestService, EmployeeService employeeService,
+                                  LeaveBalanceService leaveBalanceService, ObjectMapper objectMapper) {
         this.leaveRequestService = leaveRequestService;
         this.employeeService = employeeService;
+        this.leaveBalanceService = leaveBalanceService;
+        this.objectMapper = objectMapper;
     }
+    // includeArchived adds one statement to the listings, and a second lookup to a single leave that is not live
     @GetMapping
-    public ResponseEntity<List<LeaveRequest>> getAllLeaveRequests() {
-        return ResponseEntity.ok(leaveRequestService.getAllLeaveRequests());
+    @QueryBudget(max = 2)
+    public ResponseEntity<List<LeaveRequestView>> getAllLeaveRequests(@RequestParam(required = false) String after,
+                                                                      @RequestParam(defaultValue = "" + Cursors.DEFAULT_LIMIT) int limit,
+                                                                      @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(leaveRequestService.getCollectionVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<LeaveRequestView> page = leaveRequestService.getLeaveRequests(after, limit, includeArchived);
+        return ResponseEntity.ok().headers(CursorHeaders.of(page)).eTag(etag).body(page.items());
+    }
+
+    @GetMapping("/search")
+    @QueryBudget(max = 2)
+    public ResponseEntity<List<LeaveRequestView>> searchLeaveRequests(
+            @RequestParam(required = false) LeaveRequest.LeaveStatus status,
+            @RequestParam(required = false) LeaveRequest.LeaveType leaveType,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + Cursors.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(leaveRequestService.getCollectionVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        LeaveSearchCriteria criteria = new LeaveSearchCriteria(status, leaveType, employeeId, department, from, to);
+        CursorPage<LeaveRequestView> page = leaveRequestService.searchLeaveRequests(criteria, after, limit, includeArchived);
+        return ResponseEntity.ok().headers(CursorHeaders.of(page)).eTag(etag).body(page.items());
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportLeaveRequests(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        ObjectWriter writer = objectMapper.writerFor(LeaveRequest.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            long[] written = {0};
+            leaveRequestService.exportLeaveRequests(leaveRequest -> {
+                try {
+                    writer.writeValue(generator, leaveRequest);
+                    generator.writeRaw('\n');
+                    if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    @GetMapping("/availability")
+    @QueryBudget(max = 0)
+    public ResponseEntity<TeamAvailability> getTeamAvailability(
+            @RequestParam String department,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(leaveRequestService.getTeamAvailability(department, from, to));
+    }
+
+    @GetMapping("/stats")
+    @QueryBudget(max = 0)
+    public ResponseEntity<LeaveDashboard> getDashboard() {
+        return ResponseEntity.ok(leaveRequestService.getDashboard());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<LeaveRequest> getLeaveRequest(@PathVariable Long id) {
-        LeaveRequest leaveRequest = leaveRequestService.getLeaveRequest(id);
-        return ResponseEntity.ok(leaveRequest);
+    @QueryBudget(max = 4)
+    public ResponseEntity<LeaveRequestView> getLeaveRequest(@PathVariable Long id,
+                                                            @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            LeaveVersion version = leaveRequestService.getLeaveVersion(id, includeArchived);
+            String etag = ETags.of(version.version(), version.employeeVersion());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        LeaveRequestView leaveRequest = leaveRequestService.getLeaveRequest(id, includeArchived);
+        LeaveVersion version = leaveRequest.leaveVersion();
+        return ResponseEntity.ok().eTag(ETags.of(version.version(), version.employeeVersion())).body(leaveRequest);
     }
 
     @GetMapping("/employees/{employeeId}")
-    public ResponseEntity<List<LeaveRequest>> getLeaveRequestsByEmployee(@PathVariable Long employeeId) {
-        employeeService.getEmployeeById(employeeId);
-        return ResponseEntity.ok(leaveRequestService.getLeaveRequestsByEmployee(employeeId));
+    @QueryBudget(max = 3)
+    public ResponseEntity<List<LeaveRequestView>> getLeaveRequestsByEmployee(@PathVariable Long employeeId,
+                                                                             @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(leaveRequestService.getCollectionVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        employeeService.ensureEmployeeExists(employeeId);
+        return ResponseEntity.ok().eTag(etag).body(leaveRequestService.getLeaveRequestsByEmployee(employeeId, includeArchived));
     }
 
+    @GetMapping("/employees/{employeeId}/balances")
+    @QueryBudget(max = 2)
+    public ResponseEntity<LeaveBalanceSummary> getLeaveBalances(@PathVariable Long employeeId,
+                                                                @RequestParam(required = false) Integer year) {
+        employeeService.ensureEmployeeExists(employeeId);
+        int balanceYear = year != null ? year : LocalDate.now().getYear();
+        return ResponseEntity.ok(leaveBalanceService.getLeaveBalances(employeeId, balanceYear));
+    }
+
+    // Leave changes also lock and write the employee's balance rows: two statements on top of the leave and its event,
+    // and two more the first time a row is used (insert it, then lock it again)
     @PostMapping
+    @QueryBudget(max = 9)
     public ResponseEntity<LeaveRequest> applyLeaveRequest(@Valid @RequestBody LeaveRequest leaveRequest) {
         Long empId = leaveRequest.getEmployee() != null ? leaveRequest.getEmployee().getId() : null;
         if (empId == null) {
             return ResponseEntity.badRequest().build();
         }
-        employeeService.getEmployeeById(empId);
+        employeeService.ensureEmployeeExists(empId);
         LeaveRequest createdLeaveRequest = leaveRequestService.applyLeaveRequest(leaveRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdLeaveRequest);
     }
 
+    @PostMapping("/review")
+    @QueryBudget(max = 7)
+    public ResponseEntity<BulkReviewResult> reviewLeaveRequests(@Valid @RequestBody BulkReviewRequest request) {
+        return ResponseEntity.ok(leaveRequestService.reviewLeaveRequests(request));
+    }
+
     @DeleteMapping("/{id}")
+    @QueryBudget(max = 11)
     public ResponseEntity<Void> cancelorDeleteLeaveRequest(@PathVariable Long id) {
-        LeaveRequest leaveRequest = leaveRequestService.getLeaveRequest(id);
-        leaveRequest.setStatus(LeaveRequest.LeaveStatus.CANCELLED);
-        leaveRequestService.reviewLeaveRequest(id, leaveRequest);
+        leaveRequestService.cancelLeaveRequest(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -0,0 +1,62 @@
+package com.flexisaf.FlexiSAF_wk7.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Puts a {@link BulkheadDataSource} directly around the connection pool. {@code app.datasource.bulkhead.enabled}
+ * follows {@code spring.threads.virtual.enabled} unless set explicitly.
+ *
+ * <p>{@code app.datasource.bulkhead.pending} counts the callers waiting for a permit across every pool it wraps.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadPostProcessor implements BeanPostProcessor, Ordered, MeterBinder {
+
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final List<BulkheadDataSource> bulkheads = new CopyOnWriteArrayList<>();
+
+    public DatabaseBulkheadPostProcessor(@Value("${app.datasource.bulkhead.max-concurrent:0}") int maxConcurrent,
+                                         @Value("${app.datasource.bulkhead.acquire-timeout:5s}") Duration acquireTimeout) {
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource pool)) {
+            return bean;
+        }
+        // Default to the pool size so the bulkhead never lets more callers through than the pool can serve
+        int permits = maxConcurrent > 0 ? maxConcurrent : pool.getMaximumPoolSize();
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, permits, acquireTimeout);
+        bulkheads.add(bulkhead);
+        return bulkhead;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.datasource.bulkhead.pending", bulkheads,
+                        wrapped -> wrapped.stream().mapToInt(BulkheadDataSource::getQueueLength).sum())
+                .description("Callers waiting for a database bulkhead permit")
+                .register(registry);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,84 @@
+package com.flexisaf.FlexiSAF_wk7.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether read-only transactions may use the replica. A scheduled check runs the configured lag query on
+ * the replica, which must return how many seconds it is behind the primary; the replica is used only while the
+ * check succeeds and the lag is within {@code app.datasource.replica.max-lag}. A failed connection attempt takes
+ * it out of rotation straight away, until the next check succeeds.
+ */
+public class ReplicaHealth {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealth.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaHealth(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge.builder("app.datasource.replica.usable", this, health -> health.usable ? 1 : 0)
+                .description("Whether read-only transactions are currently sent to the replica")
+                .register(meterRegistry);
+        TimeGauge.builder("app.datasource.replica.lag", this, TimeUnit.SECONDS, health -> health.lagSeconds)
+                .description("Replication lag reported by the last successful check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks the replica's lag now.
+     *
+     * @return whether the replica may be used
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval:5s}")
+    public boolean check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            lagSeconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+            if (lagSeconds * 1000 > maxLag.toMillis()) {
+                update(false, String.format("lagging %.1fs behind the primary", lagSeconds));
+            } else {
+                update(true, "caught up");
+            }
+        } catch (SQLException ex) {
+            update(false, "unreachable: " + ex.getMessage());
+        }
+        return usable;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    void markDown(SQLException cause) {
+        update(false, "connection failed: " + cause.getMessage());
+    }
+
+    private synchronized void update(boolean nowUsable, String reason) {
+        if (nowUsable && !usable) {
+            log.info("Read replica {}; routing read-only transactions to it", reason);
+        } else if (!nowUsable && usable) {
+            log.warn("Read replica {}; routing read-only transactions to the primary", reason);
+        }
+        usable = nowUsable;
+    }
+}
@@ -0,0 +1,20 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkReviewRequest(
+        @NotEmpty(message = "At least one leave request id is required")
+        @Size(max = 1000, message = "At most 1000 leave requests can be reviewed at once")
+        List<Long> ids,
+
+        @NotNull(message = "Status is required")
+        LeaveRequest.LeaveStatus status,
+
+        @Size(max = 500)
+        String managerComment) {
+}
@@ -0,0 +1,6 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.util.List;
+
+public record BulkReviewResult(int requested, int updated, List<Long> updatedIds, List<Long> skippedIds) {
+}
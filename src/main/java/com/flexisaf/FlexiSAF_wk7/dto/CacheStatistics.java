@@ -0,0 +1,4 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+public record CacheStatistics(long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+}
@@ -0,0 +1,26 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.util.List;
+
+public record EmployeeImportReport(int total, int created, int rejected, List<RowResult> rows) {
+
+    public static EmployeeImportReport of(List<RowResult> rows) {
+        int created = (int) rows.stream().filter(row -> row.status() == RowStatus.CREATED).count();
+        return new EmployeeImportReport(rows.size(), created, rows.size() - created, rows);
+    }
+
+    public record RowResult(int row, String email, RowStatus status, Long id, String error) {
+
+        public static RowResult created(int row, String email, Long id) {
+            return new RowResult(row, email, RowStatus.CREATED, id, null);
+        }
+
+        public static RowResult rejected(int row, String email, RowStatus status, String error) {
+            return new RowResult(row, email, status, null, error);
+        }
+    }
+
+    public enum RowStatus {
+        CREATED, DUPLICATE, INVALID
+    }
+}
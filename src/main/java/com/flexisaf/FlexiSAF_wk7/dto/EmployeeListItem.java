@@ -0,0 +1,13 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+
+import java.time.LocalDate;
+
+/**
+ * Row of the employee listing: every Employee column except the address LOB, which only the detail view shows.
+ */
+public record EmployeeListItem(Long id, long version, String firstName, String lastName, String email,
+                               String phoneNumber, String department, String position, double salary,
+                               LocalDate dateofHire, Employee.EmploymentStatus status, boolean active) {
+}
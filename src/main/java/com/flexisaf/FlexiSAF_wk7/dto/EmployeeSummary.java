@@ -0,0 +1,13 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+
+public record EmployeeSummary(Long id, String firstName, String lastName, String email, String department,
+                              String position, Employee.EmploymentStatus status, boolean active) {
+
+    public static EmployeeSummary of(Employee employee) {
+        return new EmployeeSummary(employee.getId(), employee.getFirstName(), employee.getLastName(),
+                employee.getEmail(), employee.getDepartment(), employee.getPosition(), employee.getStatus(),
+                employee.isActive());
+    }
+}
@@ -0,0 +1,15 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.LocalDate;
+
+// A leave request moving from one status to another; from is null for a new request or when replaying history
+public record LeaveBalanceChange(Long employeeId, LeaveRequest.LeaveType leaveType, LocalDate startDate,
+                                 LocalDate endDate, LeaveRequest.LeaveStatus from, LeaveRequest.LeaveStatus to) {
+
+    public LeaveBalanceChange(Long employeeId, LeaveRequest.LeaveType leaveType, LocalDate startDate,
+                              LocalDate endDate, LeaveRequest.LeaveStatus status) {
+        this(employeeId, leaveType, startDate, endDate, null, status);
+    }
+}
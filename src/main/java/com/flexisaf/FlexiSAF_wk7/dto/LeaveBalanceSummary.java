@@ -0,0 +1,16 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.util.List;
+
+/**
+ * An employee's leave balance for one year, one entry per leave type. {@code entitlement} and {@code remaining}
+ * are null for types without a configured entitlement.
+ */
+public record LeaveBalanceSummary(Long employeeId, int year, List<TypeBalance> balances) {
+
+    public record TypeBalance(LeaveRequest.LeaveType leaveType, Integer entitlement, int used, int pending,
+                              Integer remaining) {
+    }
+}
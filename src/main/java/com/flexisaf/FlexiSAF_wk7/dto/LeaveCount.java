@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+public record LeaveCount(Long employeeId, String department, LeaveRequest.LeaveType leaveType,
+                         LeaveRequest.LeaveStatus status, Long count) {
+}
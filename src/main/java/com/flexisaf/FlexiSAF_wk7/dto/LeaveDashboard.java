@@ -0,0 +1,11 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.util.Map;
+
+public record LeaveDashboard(long total,
+                             Map<LeaveRequest.LeaveStatus, Long> byStatus,
+                             Map<LeaveRequest.LeaveType, Map<LeaveRequest.LeaveStatus, Long>> byType,
+                             Map<String, Map<LeaveRequest.LeaveStatus, Long>> byDepartment) {
+}
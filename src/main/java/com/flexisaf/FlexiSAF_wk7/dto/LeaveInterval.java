@@ -0,0 +1,6 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.time.LocalDate;
+
+public record LeaveInterval(Long id, LocalDate startDate, LocalDate endDate) {
+}
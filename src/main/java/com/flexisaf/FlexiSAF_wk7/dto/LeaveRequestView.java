@@ -0,0 +1,31 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for leave listings. It is projected straight from a leave/employee join, so reading N leaves is a
+ * single statement and never initialises the Employee entity or its address LOB.
+ */
+public record LeaveRequestView(Long id, EmployeeRef employee, LocalDate startDate, LocalDate endDate,
+                               LeaveRequest.LeaveType leaveType, LeaveRequest.LeaveStatus status, String reason,
+                               String managerComment, LocalDate dateApplied, LocalDate dateReviewed, Long version) {
+
+    public LeaveRequestView(Long id, Long employeeId, String firstName, String lastName, String email,
+                            String department, LocalDate startDate, LocalDate endDate,
+                            LeaveRequest.LeaveType leaveType, LeaveRequest.LeaveStatus status, String reason,
+                            String managerComment, LocalDate dateApplied, LocalDate dateReviewed, Long version,
+                            Long employeeVersion) {
+        this(id, new EmployeeRef(employeeId, firstName, lastName, email, department, employeeVersion), startDate,
+                endDate, leaveType, status, reason, managerComment, dateApplied, dateReviewed, version);
+    }
+
+    public LeaveVersion leaveVersion() {
+        return new LeaveVersion(version, employee.version());
+    }
+
+    public record EmployeeRef(Long id, String firstName, String lastName, String email, String department,
+                              Long version) {
+    }
+}
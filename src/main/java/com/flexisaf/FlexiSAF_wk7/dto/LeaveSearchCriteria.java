@@ -0,0 +1,13 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.LocalDate;
+
+/**
+ * Filters for the leave search; every field is optional. {@code from} and {@code to} select leaves that overlap
+ * the range, so a leave that starts before {@code from} but is still running on it matches.
+ */
+public record LeaveSearchCriteria(LeaveRequest.LeaveStatus status, LeaveRequest.LeaveType leaveType, Long employeeId,
+                                  String department, LocalDate from, LocalDate to) {
+}
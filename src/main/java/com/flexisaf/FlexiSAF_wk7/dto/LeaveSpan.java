@@ -0,0 +1,6 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.time.LocalDate;
+
+public record LeaveSpan(Long employeeId, String department, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,18 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Outbox payload; previousStatus is null when the leave was just applied for
+public record LeaveStatusEvent(Long leaveRequestId, Long employeeId, LeaveRequest.LeaveType leaveType,
+                               LocalDate startDate, LocalDate endDate, LeaveRequest.LeaveStatus previousStatus,
+                               LeaveRequest.LeaveStatus status, String managerComment, Instant occurredAt) {
+
+    public static LeaveStatusEvent of(LeaveRequest leaveRequest, LeaveRequest.LeaveStatus previousStatus) {
+        return new LeaveStatusEvent(leaveRequest.getId(), leaveRequest.getEmployee().getId(),
+                leaveRequest.getLeaveType(), leaveRequest.getStartDate(), leaveRequest.getEndDate(), previousStatus,
+                leaveRequest.getStatus(), leaveRequest.getManagerComment(), Instant.now());
+    }
+}
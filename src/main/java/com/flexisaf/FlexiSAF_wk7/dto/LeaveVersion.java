@@ -0,0 +1,5 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+// The leave representation embeds employee fields, so its version covers both rows
+public record LeaveVersion(Long version, Long employeeVersion) {
+}
@@ -0,0 +1,18 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Employees to offboard, either by id or a whole department. {@code purge} deletes them and their leave history
+ * instead of soft-deleting them.
+ */
+public record OffboardRequest(
+        @Size(max = 1000, message = "At most 1000 employees can be offboarded by id at once")
+        List<Long> ids,
+
+        String department,
+
+        boolean purge) {
+}
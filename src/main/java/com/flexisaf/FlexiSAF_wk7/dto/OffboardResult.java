@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.util.List;
+
+public record OffboardResult(List<Long> employeeIds, boolean purged, int leaveRequestsCancelled,
+                             int leaveRequestsDeleted) {
+}
@@ -0,0 +1,9 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.LocalDate;
+
+public record OpenLeave(Long id, Long employeeId, LeaveRequest.LeaveType leaveType, LeaveRequest.LeaveStatus status,
+                        LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.time.Instant;
+
+// oldestCreatedAt is null when the outbox is empty
+public record OutboxBacklog(Long pending, Instant oldestCreatedAt) {
+}
@@ -0,0 +1,11 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.flexisaf.FlexiSAF_wk7.entity.OutboxEvent;
+
+import java.time.Instant;
+
+// What sinks receive. The id is stable across redeliveries, so consumers can use it to drop duplicates.
+public record OutboxMessage(Long id, OutboxEvent.EventType eventType, Long aggregateId, @JsonRawValue String payload,
+                            Instant createdAt) {
+}
@@ -0,0 +1,9 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+
+import java.time.LocalDate;
+
+public record PendingLeave(Long id, Long employeeId, String department, LeaveRequest.LeaveType leaveType,
+                           LocalDate startDate, LocalDate endDate) {
+}
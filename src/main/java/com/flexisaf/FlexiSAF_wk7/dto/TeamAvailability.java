@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record TeamAvailability(String department, LocalDate from, LocalDate to, List<Long> employeesOnLeave) {
+}
@@ -0,0 +1,56 @@
+package com.flexisaf.FlexiSAF_wk7.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A closed leave request moved out of {@code leave_requests} by the archiver. It keeps the id it had there and is
+ * never changed again; only the read endpoints asked to {@code includeArchived} look at it.
+ */
+@Entity
+@Table(name = "leave_requests_archive")
+@Immutable
+@Data
+public class ArchivedLeaveRequest {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LeaveRequest.LeaveType leaveType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LeaveRequest.LeaveStatus status;
+
+    @Column(length = 500)
+    private String reason;
+
+    @Column(length = 500)
+    private String managerComment;
+
+    private LocalDate dateApplied;
+
+    private LocalDate dateReviewed;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+}
@@ -1,24 +1,43 @@
 package com.flexisaf.FlexiSAF_wk7.entity;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
 @Table(name = "employees")
 @Data
+// Partial updates write only the changed columns, so patching a phone number does not rewrite the address LOB
+@DynamicUpdate
+// Offboarded employees are soft-deleted: every query and join on employees skips them
+@SQLRestriction("deleted_at is null")
 public class Employee {
 
+    // Pooled sequence instead of IDENTITY so Hibernate can assign ids up front and batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = 50)
     private Long id;
 
+    // Bumped on every update and backs the ETag. Primitive so that an id-only reference in a request body is
+    // still treated as an existing row rather than a new one
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @NotBlank(message = "First name is required")
     @Column(nullable=false,length=50)
     private String firstName;
@@ -48,11 +67,17 @@ public class Employee {
 
     private boolean active;
 
+    // Lazy with bytecode enhancement: loading an employee never reads the LOB unless the address is used
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     private String address;
 
+    @JsonIgnore
+    private Instant deletedAt;
+
+    // Served by GET /api/leaves/employees/{id}; serializing it here cost one extra query per employee
     @OneToMany(mappedBy = "employee", cascade = CascadeType.ALL, orphanRemoval = true )
-    @JsonIgnoreProperties("employee")
+    @JsonIgnore
     private List<LeaveRequest> leaveRequests;
 
     public enum EmploymentStatus {
@@ -0,0 +1,45 @@
+package com.flexisaf.FlexiSAF_wk7.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Days one employee has pending and approved for one leave type in one calendar year. Rows are created on first
+ * use and only ever adjusted by {@code LeaveBalanceLedger}.
+ */
+@Entity
+@Table(name = "leave_balances")
+@Data
+@NoArgsConstructor
+public class LeaveBalance {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private int pendingDays;
+
+    @Column(nullable = false)
+    private int usedDays;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "employee_id", nullable = false)
+        private Long employeeId;
+
+        @Column(name = "leave_year", nullable = false)
+        private int year;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false)
+        private LeaveRequest.LeaveType leaveType;
+    }
+}
@@ -0,0 +1,48 @@
+package com.flexisaf.FlexiSAF_wk7.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A leave status change waiting to be delivered downstream. Written in the same transaction as the change itself
+ * and deleted by the dispatcher once every sink has accepted it.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EventType eventType;
+
+    // The leave request the event is about
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 2000)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public enum EventType {
+        LEAVE_APPLIED, LEAVE_APPROVED, LEAVE_REJECTED, LEAVE_CANCELLED;
+
+        public static EventType of(LeaveRequest.LeaveStatus status) {
+            return switch (status) {
+                case PENDING -> LEAVE_APPLIED;
+                case APPROVED -> LEAVE_APPROVED;
+                case REJECTED -> LEAVE_REJECTED;
+                case CANCELLED -> LEAVE_CANCELLED;
+            };
+        }
+    }
+}
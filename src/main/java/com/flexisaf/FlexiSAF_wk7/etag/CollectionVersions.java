@@ -0,0 +1,43 @@
+package com.flexisaf.FlexiSAF_wk7.etag;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the collection endpoints, bumped by the services after every committed change so a list
+ * request can be answered with 304 without running its query. The counters live in memory like the other indexes;
+ * the startup time is part of every tag so a restarted instance never reissues an old one.
+ *
+ * <p>Only valid while a single instance serves the API: another instance never hears of this one's changes, so its
+ * counter would stand still and answer 304 for a list that did change. Deriving the version from the tables
+ * instead would cost an aggregate over every row on each list request, more than the page query it saves.
+ */
+@Component
+public class CollectionVersions {
+
+    public enum Collection {
+        EMPLOYEES, LEAVES
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Collection, AtomicLong> versions = new EnumMap<>(Collection.class);
+
+    public CollectionVersions() {
+        for (Collection collection : Collection.values()) {
+            versions.put(collection, new AtomicLong());
+        }
+    }
+
+    public String current(Collection collection) {
+        return epoch + "." + versions.get(collection).get();
+    }
+
+    public void bump(Collection... collections) {
+        for (Collection collection : collections) {
+            versions.get(collection).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.exception;
+
+public class LeaveConflictException extends RuntimeException{
+    public LeaveConflictException(String message) {
+        super(message);
+    }
+}
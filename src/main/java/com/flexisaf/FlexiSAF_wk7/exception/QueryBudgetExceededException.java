@@ -0,0 +1,7 @@
+package com.flexisaf.FlexiSAF_wk7.exception;
+
+public class QueryBudgetExceededException extends RuntimeException{
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,149 @@
+package com.flexisaf.FlexiSAF_wk7.index;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSpan;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approved leave per department as one Roaring bitmap of employee ids per calendar day. "Who in department X is
+ * off between D1 and D2" is the union of the bitmaps for those days, which for a quarter is a few dozen
+ * compressed ORs instead of a scan over leave requests.
+ *
+ * <p>Built from the database at startup and kept current by the leave and employee services. An employee moving
+ * department has their days moved from one department's bitmaps to the other's without touching the database.
+ */
+@Component
+public class DepartmentAvailabilityIndex {
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final Map<String, DepartmentDays> byDepartment = new ConcurrentHashMap<>();
+
+    public DepartmentAvailabilityIndex(LeaveRequestRepository leaveRequestRepository) {
+        this.leaveRequestRepository = leaveRequestRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        byDepartment.clear();
+        leaveRequestRepository.findSpansByStatus(LeaveRequest.LeaveStatus.APPROVED).forEach(this::add);
+    }
+
+    public void add(LeaveSpan span) {
+        if (span.department() != null) {
+            department(span.department()).set(employeeBit(span.employeeId()), span.startDate(), span.endDate(), true);
+        }
+    }
+
+    public void remove(LeaveSpan span) {
+        if (span.department() != null) {
+            department(span.department()).set(employeeBit(span.employeeId()), span.startDate(), span.endDate(), false);
+        }
+    }
+
+    public void moveEmployee(Long employeeId, String fromDepartment, String toDepartment) {
+        if (Objects.equals(fromDepartment, toDepartment)) {
+            return;
+        }
+        int employee = employeeBit(employeeId);
+        List<Long> days = fromDepartment != null ? department(fromDepartment).clear(employee) : List.of();
+        if (toDepartment != null) {
+            department(toDepartment).setDays(employee, days);
+        }
+    }
+
+    public void removeEmployee(Long employeeId, String department) {
+        if (department != null) {
+            department(department).clear(employeeBit(employeeId));
+        }
+    }
+
+    public RoaringBitmap employeesOnLeave(String department, LocalDate from, LocalDate to) {
+        DepartmentDays days = byDepartment.get(department);
+        return days == null ? new RoaringBitmap() : days.union(from, to);
+    }
+
+    private DepartmentDays department(String department) {
+        return byDepartment.computeIfAbsent(department, key -> new DepartmentDays());
+    }
+
+    private static int employeeBit(Long employeeId) {
+        return Math.toIntExact(employeeId);
+    }
+
+    private static final class DepartmentDays {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<Long, RoaringBitmap> byEpochDay = new TreeMap<>();
+
+        private void set(int employee, LocalDate from, LocalDate to, boolean onLeave) {
+            lock.writeLock().lock();
+            try {
+                for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+                    if (onLeave) {
+                        byEpochDay.computeIfAbsent(day, key -> new RoaringBitmap()).add(employee);
+                    } else {
+                        RoaringBitmap employees = byEpochDay.get(day);
+                        if (employees != null) {
+                            employees.remove(employee);
+                            if (employees.isEmpty()) {
+                                byEpochDay.remove(day);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void setDays(int employee, List<Long> epochDays) {
+            lock.writeLock().lock();
+            try {
+                epochDays.forEach(day -> byEpochDay.computeIfAbsent(day, key -> new RoaringBitmap()).add(employee));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private List<Long> clear(int employee) {
+            lock.writeLock().lock();
+            try {
+                List<Long> cleared = new ArrayList<>();
+                byEpochDay.forEach((day, employees) -> {
+                    if (employees.checkedRemove(employee)) {
+                        cleared.add(day);
+                    }
+                });
+                byEpochDay.values().removeIf(RoaringBitmap::isEmpty);
+                return cleared;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private RoaringBitmap union(LocalDate from, LocalDate to) {
+            lock.readLock().lock();
+            try {
+                return FastAggregation.or(byEpochDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true)
+                        .values().iterator());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.flexisaf.FlexiSAF_wk7.index;
+
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Prefix search over employee names, email, department and position. Terms live in a sorted dictionary, so every
+ * term starting with a prefix is one contiguous sub-map, and each term points at two Roaring bitmaps of employee
+ * ids: one for name matches and one for the other fields. A query is a handful of bitmap unions and intersections
+ * over the matching terms; only the top {@code limit} hits are ever turned into results.
+ *
+ * <p>Ranking, best first: exact name term, name prefix, exact term in another field, prefix in another field.
+ * A single-word query breaks ties by term order and then id; a multi-word query sums the ranks of its words and
+ * breaks ties by id. Loaded from the database at startup and kept current by the employee service.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    private static final int EXACT_NAME = 0;
+    private static final int PREFIX_NAME = 1;
+    private static final int EXACT_OTHER = 2;
+    private static final int PREFIX_OTHER = 3;
+    private static final int TIERS = 4;
+
+    private final EmployeeRepository employeeRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, EmployeeSummary> documents = new HashMap<>();
+
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<EmployeeSummary> employees = employeeRepository.findAllSummaries();
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            employees.forEach(this::addLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(EmployeeSummary employee) {
+        putAll(List.of(employee));
+    }
+
+    public void putAll(Collection<EmployeeSummary> employees) {
+        lock.writeLock().lock();
+        try {
+            for (EmployeeSummary employee : employees) {
+                removeLocked(employeeBit(employee.id()));
+                addLocked(employee);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long employeeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(employeeBit(employeeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<EmployeeSummary> search(String query, int limit) {
+        List<String> tokens = tokenize(query).distinct().toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return tokens.size() == 1 ? topMatches(tokens.get(0), limit) : rankCandidates(tokens, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks the dictionary in tier order and stops once it has enough hits, so a broad prefix costs no more
+    // than a narrow one
+    private List<EmployeeSummary> topMatches(String token, int limit) {
+        List<EmployeeSummary> results = new ArrayList<>(limit);
+        RoaringBitmap taken = new RoaringBitmap();
+        Postings exact = terms.get(token);
+        Collection<Postings> prefixed = terms.subMap(token, false, token + Character.MAX_VALUE, false).values();
+
+        if (exact != null && collect(exact.name, taken, results, limit)) {
+            return results;
+        }
+        for (Postings postings : prefixed) {
+            if (collect(postings.name, taken, results, limit)) {
+                return results;
+            }
+        }
+        if (exact != null && collect(exact.other, taken, results, limit)) {
+            return results;
+        }
+        for (Postings postings : prefixed) {
+            if (collect(postings.other, taken, results, limit)) {
+                return results;
+            }
+        }
+        return results;
+    }
+
+    private boolean collect(RoaringBitmap ids, RoaringBitmap taken, List<EmployeeSummary> results, int limit) {
+        IntIterator iterator = ids.getIntIterator();
+        while (iterator.hasNext() && results.size() < limit) {
+            int id = iterator.next();
+            if (taken.checkedAdd(id)) {
+                results.add(documents.get(id));
+            }
+        }
+        return results.size() == limit;
+    }
+
+    private List<EmployeeSummary> rankCandidates(List<String> tokens, int limit) {
+        List<RoaringBitmap[]> tiersByToken = new ArrayList<>(tokens.size());
+        RoaringBitmap candidates = null;
+        for (String token : tokens) {
+            RoaringBitmap[] tiers = tiers(token);
+            RoaringBitmap matches = FastAggregation.or(tiers);
+            candidates = candidates == null ? matches : RoaringBitmap.and(candidates, matches);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            tiersByToken.add(tiers);
+        }
+
+        // Max-heap on (score, id) holding the best `limit` hits seen so far
+        PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1,
+                (a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(b[1], a[1]));
+        IntIterator ids = candidates.getIntIterator();
+        while (ids.hasNext()) {
+            int id = ids.next();
+            long score = 0;
+            for (RoaringBitmap[] tiers : tiersByToken) {
+                score += tierOf(tiers, id);
+            }
+            best.add(new long[]{score, id});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        long[][] ranked = best.toArray(long[][]::new);
+        Arrays.sort(ranked, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        return Arrays.stream(ranked).map(hit -> documents.get((int) hit[1])).toList();
+    }
+
+    private RoaringBitmap[] tiers(String token) {
+        RoaringBitmap[] tiers = new RoaringBitmap[TIERS];
+        Postings exact = terms.get(token);
+        tiers[EXACT_NAME] = exact != null ? exact.name.clone() : new RoaringBitmap();
+        tiers[EXACT_OTHER] = exact != null ? RoaringBitmap.andNot(exact.other, tiers[EXACT_NAME]) : new RoaringBitmap();
+
+        Collection<Postings> prefixed = terms.subMap(token, false, token + Character.MAX_VALUE, false).values();
+        RoaringBitmap prefixName = FastAggregation.or(prefixed.stream().map(postings -> postings.name).iterator());
+        RoaringBitmap prefixOther = FastAggregation.or(prefixed.stream().map(postings -> postings.other).iterator());
+        tiers[PREFIX_NAME] = RoaringBitmap.andNot(prefixName, tiers[EXACT_NAME]);
+        RoaringBitmap ranked = RoaringBitmap.or(tiers[EXACT_NAME], tiers[PREFIX_NAME]);
+        tiers[EXACT_OTHER].andNot(ranked);
+        ranked.or(tiers[EXACT_OTHER]);
+        tiers[PREFIX_OTHER] = RoaringBitmap.andNot(prefixOther, ranked);
+        return tiers;
+    }
+
+    private static int tierOf(RoaringBitmap[] tiers, int id) {
+        for (int tier = 0; tier < TIERS; tier++) {
+            if (tiers[tier].contains(id)) {
+                return tier;
+            }
+        }
+        return TIERS;
+    }
+
+    private void addLocked(EmployeeSummary employee) {
+        int id = employeeBit(employee.id());
+        documents.put(id, employee);
+        nameTerms(employee).forEach(term -> postings(term).name.add(id));
+        otherTerms(employee).forEach(term -> postings(term).other.add(id));
+    }
+
+    private void removeLocked(int id) {
+        EmployeeSummary previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        Stream.concat(nameTerms(previous), otherTerms(previous))
+                .distinct()
+                .forEach(term -> {
+                    Postings postings = terms.get(term);
+                    if (postings != null) {
+                        postings.name.remove(id);
+                        postings.other.remove(id);
+                        if (postings.name.isEmpty() && postings.other.isEmpty()) {
+                            terms.remove(term);
+                        }
+                    }
+                });
+    }
+
+    private Postings postings(String term) {
+        return terms.computeIfAbsent(term, key -> new Postings());
+    }
+
+    private static Stream<String> nameTerms(EmployeeSummary employee) {
+        return Stream.of(employee.firstName(), employee.lastName()).flatMap(EmployeeSearchIndex::tokenize);
+    }
+
+    private static Stream<String> otherTerms(EmployeeSummary employee) {
+        return Stream.of(employee.email(), employee.department(), employee.position())
+                .flatMap(EmployeeSearchIndex::tokenize);
+    }
+
+    static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")).filter(term -> !term.isEmpty());
+    }
+
+    private static int employeeBit(Long employeeId) {
+        return Math.toIntExact(employeeId);
+    }
+
+    private static final class Postings {
+        private final RoaringBitmap name = new RoaringBitmap();
+        private final RoaringBitmap other = new RoaringBitmap();
+    }
+}
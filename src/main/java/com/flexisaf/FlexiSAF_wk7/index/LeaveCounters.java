@@ -0,0 +1,377 @@
+package com.flexisaf.FlexiSAF_wk7.index;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveCount;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveDashboard;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest.LeaveStatus;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest.LeaveType;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Leave counts by status, by leave type and by department, adjusted as leave requests change so the dashboard
+ * never has to scan leave requests. Department totals follow the employee's current department, so each employee
+ * also keeps a small tally of their own requests that can be moved between departments or dropped in one step.
+ *
+ * <p>Built from the database at startup and compared against it on a schedule. Changes made inside a transaction
+ * are applied once it commits, and a transaction counts as committing from just before its commit until they have
+ * been applied. A reconciliation attempt is discarded rather than trusted if any change was applied or any
+ * transaction was committing while it ran, so a change is never both read from the database and applied on top of
+ * the reload. A round makes up to {@code app.leave-counters.reconcile-attempts} attempts and reports whether it
+ * found the counters consistent, repaired drift or had to give up; the outcome is counted in
+ * {@code app.leave-counters.reconcile} and rounds that keep giving up are logged.
+ */
+@Component
+public class LeaveCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveCounters.class);
+
+    private static final LeaveType[] TYPES = LeaveType.values();
+    private static final LeaveStatus[] STATUSES = LeaveStatus.values();
+
+    public enum Reconciliation {
+        CONSISTENT, REPAIRED, SKIPPED
+    }
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final int attempts;
+    private final Map<Reconciliation, Counter> outcomes = new EnumMap<>(Reconciliation.class);
+    private final AtomicInteger skippedRounds = new AtomicInteger();
+    // Writers share the read lock; only a reload takes the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicInteger committing = new AtomicInteger();
+    private final Map<Long, Tally> byEmployee = new ConcurrentHashMap<>();
+    private final Map<LeaveStatus, LongAdder> byStatus = adders();
+    private final Map<LeaveType, Map<LeaveStatus, LongAdder>> byType = new EnumMap<>(LeaveType.class);
+    private final Map<String, Map<LeaveStatus, LongAdder>> byDepartment = new ConcurrentHashMap<>();
+
+    public LeaveCounters(LeaveRequestRepository leaveRequestRepository, MeterRegistry meterRegistry,
+                         @Value("${app.leave-counters.reconcile-attempts:3}") int attempts) {
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.attempts = attempts;
+        for (LeaveType type : TYPES) {
+            byType.put(type, adders());
+        }
+        for (Reconciliation outcome : Reconciliation.values()) {
+            outcomes.put(outcome, Counter.builder("app.leave-counters.reconcile")
+                    .description("Reconciliation rounds of the leave dashboard counters by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<LeaveCount> counts = leaveRequestRepository.countByEmployeeTypeAndStatus();
+        lock.writeLock().lock();
+        try {
+            load(tallies(counts));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the counters with the database and reloads them if they differ. An attempt that overlaps a leave
+     * change is retried, up to {@code app.leave-counters.reconcile-attempts} times.
+     *
+     * @return {@link Reconciliation#SKIPPED} if every attempt overlapped a leave change, otherwise whether the
+     * counters were consistent or had drifted and were reloaded
+     */
+    @Scheduled(fixedDelayString = "${app.leave-counters.reconcile-interval:5m}",
+            initialDelayString = "${app.leave-counters.reconcile-interval:5m}")
+    public Reconciliation reconcile() {
+        Reconciliation outcome = Reconciliation.SKIPPED;
+        for (int attempt = 1; attempt <= attempts && outcome == Reconciliation.SKIPPED; attempt++) {
+            outcome = attemptReconcile();
+        }
+        outcomes.get(outcome).increment();
+        if (outcome != Reconciliation.SKIPPED) {
+            skippedRounds.set(0);
+        } else {
+            log.warn("Leave counters could not be reconciled: all {} attempts overlapped a leave change " +
+                    "({} rounds in a row)", attempts, skippedRounds.incrementAndGet());
+        }
+        return outcome;
+    }
+
+    private Reconciliation attemptReconcile() {
+        long before = changes.get();
+        Map<Long, Tally> expected = tallies(leaveRequestRepository.countByEmployeeTypeAndStatus());
+        lock.writeLock().lock();
+        try {
+            if (changes.get() != before || committing.get() > 0) {
+                log.debug("Leave counters changed during reconciliation; retrying");
+                return Reconciliation.SKIPPED;
+            }
+            Map<Long, Tally> actual = new HashMap<>(byEmployee);
+            actual.values().removeIf(Tally::isEmpty);
+            if (actual.equals(expected)) {
+                return Reconciliation.CONSISTENT;
+            }
+            log.warn("Leave counters drifted from the database; reloading {} employee tallies", expected.size());
+            load(expected);
+            return Reconciliation.REPAIRED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records one leave request moving from {@code from} to {@code to}; {@code from} is null for a new request and
+     * {@code to} is null for one that was archived.
+     */
+    public void record(Long employeeId, String department, LeaveType type, LeaveStatus from, LeaveStatus to) {
+        if (from == to) {
+            return;
+        }
+        onCommit(() -> applyRecord(employeeId, department, type, from, to));
+    }
+
+    public void moveEmployee(Long employeeId, String toDepartment) {
+        onCommit(() -> applyMove(employeeId, toDepartment));
+    }
+
+    // Deleting an employee cascades to their leave requests
+    public void removeEmployee(Long employeeId) {
+        onCommit(() -> applyRemove(employeeId));
+    }
+
+    private void applyRecord(Long employeeId, String department, LeaveType type, LeaveStatus from, LeaveStatus to) {
+        lock.readLock().lock();
+        try {
+            Tally tally = byEmployee.computeIfAbsent(employeeId, key -> new Tally(department));
+            synchronized (tally) {
+                if (from != null) {
+                    adjust(tally, type, from, -1);
+                }
+                if (to != null) {
+                    adjust(tally, type, to, 1);
+                }
+            }
+            changes.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyMove(Long employeeId, String toDepartment) {
+        lock.readLock().lock();
+        try {
+            Tally tally = byEmployee.get(employeeId);
+            if (tally == null) {
+                return;
+            }
+            synchronized (tally) {
+                if (Objects.equals(tally.department, toDepartment)) {
+                    return;
+                }
+                addDepartment(tally, -1);
+                tally.department = toDepartment;
+                addDepartment(tally, 1);
+            }
+            changes.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyRemove(Long employeeId) {
+        lock.readLock().lock();
+        try {
+            Tally tally = byEmployee.remove(employeeId);
+            if (tally == null) {
+                return;
+            }
+            synchronized (tally) {
+                for (LeaveType type : TYPES) {
+                    for (LeaveStatus status : STATUSES) {
+                        long count = tally.get(type, status);
+                        byStatus.get(status).add(-count);
+                        byType.get(type).get(status).add(-count);
+                    }
+                }
+                addDepartment(tally, -1);
+            }
+            changes.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Queues the change until the current transaction commits, or applies it straight away outside one
+    @SuppressWarnings("unchecked")
+    private void onCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        List<Runnable> pending = (List<Runnable>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Runnable> queued = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, queued);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean counted;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    committing.incrementAndGet();
+                    counted = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    queued.forEach(Runnable::run);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LeaveCounters.this);
+                    if (counted) {
+                        committing.decrementAndGet();
+                    }
+                }
+            });
+            pending = queued;
+        }
+        pending.add(change);
+    }
+
+    public LeaveDashboard snapshot() {
+        Map<LeaveStatus, Long> statuses = sums(byStatus);
+        Map<LeaveType, Map<LeaveStatus, Long>> types = new EnumMap<>(LeaveType.class);
+        byType.forEach((type, adders) -> types.put(type, sums(adders)));
+        Map<String, Map<LeaveStatus, Long>> departments = new TreeMap<>();
+        byDepartment.forEach((department, adders) -> departments.put(department, sums(adders)));
+        long total = statuses.values().stream().mapToLong(Long::longValue).sum();
+        return new LeaveDashboard(total, statuses, types, departments);
+    }
+
+    private void adjust(Tally tally, LeaveType type, LeaveStatus status, long delta) {
+        tally.add(type, status, delta);
+        byStatus.get(status).add(delta);
+        byType.get(type).get(status).add(delta);
+        if (tally.department != null) {
+            department(tally.department).get(status).add(delta);
+        }
+    }
+
+    private void addDepartment(Tally tally, int sign) {
+        if (tally.department == null) {
+            return;
+        }
+        Map<LeaveStatus, LongAdder> adders = department(tally.department);
+        for (LeaveType type : TYPES) {
+            for (LeaveStatus status : STATUSES) {
+                adders.get(status).add(sign * tally.get(type, status));
+            }
+        }
+    }
+
+    private void load(Map<Long, Tally> tallies) {
+        byEmployee.clear();
+        byStatus.values().forEach(LongAdder::reset);
+        byType.values().forEach(adders -> adders.values().forEach(LongAdder::reset));
+        byDepartment.clear();
+        tallies.forEach((employeeId, expected) -> {
+            Tally tally = new Tally(expected.department);
+            byEmployee.put(employeeId, tally);
+            for (LeaveType type : TYPES) {
+                for (LeaveStatus status : STATUSES) {
+                    long count = expected.get(type, status);
+                    if (count != 0) {
+                        adjust(tally, type, status, count);
+                    }
+                }
+            }
+        });
+        changes.incrementAndGet();
+    }
+
+    private Map<LeaveStatus, LongAdder> department(String department) {
+        return byDepartment.computeIfAbsent(department, key -> adders());
+    }
+
+    private static Map<Long, Tally> tallies(List<LeaveCount> counts) {
+        Map<Long, Tally> tallies = new HashMap<>();
+        for (LeaveCount count : counts) {
+            if (count.status() != null) {
+                tallies.computeIfAbsent(count.employeeId(), key -> new Tally(count.department()))
+                        .add(count.leaveType(), count.status(), count.count());
+            }
+        }
+        return tallies;
+    }
+
+    private static Map<LeaveStatus, LongAdder> adders() {
+        Map<LeaveStatus, LongAdder> adders = new EnumMap<>(LeaveStatus.class);
+        for (LeaveStatus status : STATUSES) {
+            adders.put(status, new LongAdder());
+        }
+        return adders;
+    }
+
+    private static Map<LeaveStatus, Long> sums(Map<LeaveStatus, LongAdder> adders) {
+        Map<LeaveStatus, Long> sums = new EnumMap<>(LeaveStatus.class);
+        adders.forEach((status, adder) -> sums.put(status, adder.sum()));
+        return sums;
+    }
+
+    private static final class Tally {
+
+        private String department;
+        private final long[] counts = new long[TYPES.length * STATUSES.length];
+
+        private Tally(String department) {
+            this.department = department;
+        }
+
+        private long get(LeaveType type, LeaveStatus status) {
+            return counts[type.ordinal() * STATUSES.length + status.ordinal()];
+        }
+
+        private void add(LeaveType type, LeaveStatus status, long delta) {
+            counts[type.ordinal() * STATUSES.length + status.ordinal()] += delta;
+        }
+
+        private boolean isEmpty() {
+            return Arrays.stream(counts).allMatch(count -> count == 0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Tally tally
+                    && Objects.equals(department, tally.department)
+                    && Arrays.equals(counts, tally.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(department, Arrays.hashCode(counts));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.flexisaf.FlexiSAF_wk7.index;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveInterval;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of each employee's PENDING and APPROVED leave intervals, used to reject overlapping
+ * applications in O(log n) instead of scanning the employee's leave history.
+ *
+ * <p>Every employee has their own lock, so applications for the same employee are serialised while different
+ * employees never contend. An employee's intervals are loaded from the database the first time they are needed
+ * and afterwards kept in sync by the leave service, which must call {@link #findOverlap} and {@link #sync} from
+ * inside {@link #locked} and commit its write before the lock is released.
+ */
+@Component
+public class LeaveIntervalIndex {
+
+    static final Set<LeaveRequest.LeaveStatus> ACTIVE_STATUSES =
+            EnumSet.of(LeaveRequest.LeaveStatus.PENDING, LeaveRequest.LeaveStatus.APPROVED);
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final Map<Long, EmployeeIntervals> byEmployee = new ConcurrentHashMap<>();
+
+    public LeaveIntervalIndex(LeaveRequestRepository leaveRequestRepository) {
+        this.leaveRequestRepository = leaveRequestRepository;
+    }
+
+    public <T> T locked(Long employeeId, Supplier<T> action) {
+        EmployeeIntervals intervals = lock(employeeId);
+        try {
+            if (!intervals.loaded) {
+                leaveRequestRepository.findIntervalsByEmployeeIdAndStatusIn(employeeId, ACTIVE_STATUSES)
+                        .forEach(intervals::put);
+                intervals.loaded = true;
+            }
+            return action.get();
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action holding the locks of all the employees, taken in id order so two callers with overlapping
+     * employees cannot deadlock. Intervals are not loaded; use {@link #syncIfLoaded} from inside the action.
+     */
+    public <T> T lockedAll(Collection<Long> employeeIds, Supplier<T> action) {
+        List<EmployeeIntervals> held = new ArrayList<>();
+        try {
+            for (Long employeeId : new TreeSet<>(employeeIds)) {
+                held.add(lock(employeeId));
+            }
+            return action.get();
+        } finally {
+            held.forEach(intervals -> intervals.lock.unlock());
+        }
+    }
+
+    public Optional<Long> findOverlap(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        return heldIntervals(employeeId).findOverlap(startDate, endDate);
+    }
+
+    public void sync(Long employeeId, Long leaveId, LocalDate startDate, LocalDate endDate,
+                     LeaveRequest.LeaveStatus status) {
+        EmployeeIntervals intervals = heldIntervals(employeeId);
+        intervals.remove(leaveId);
+        if (ACTIVE_STATUSES.contains(status)) {
+            intervals.put(new LeaveInterval(leaveId, startDate, endDate));
+        }
+    }
+
+    /**
+     * Applies a change that was committed without holding the employee's lock, such as a bulk review. Employees
+     * whose intervals are not loaded yet are skipped; they will read the committed state when first used. A null
+     * status drops the leave, as for one that was archived.
+     */
+    public void syncIfLoaded(Long employeeId, Long leaveId, LocalDate startDate, LocalDate endDate,
+                             LeaveRequest.LeaveStatus status) {
+        EmployeeIntervals intervals = byEmployee.get(employeeId);
+        if (intervals == null) {
+            return;
+        }
+        intervals.lock.lock();
+        try {
+            if (intervals.loaded) {
+                sync(employeeId, leaveId, startDate, endDate, status);
+            }
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets an employee's intervals. The entry is only dropped while nobody is waiting on its lock, so a caller
+     * can never run alongside one holding a lock that is no longer in the map; otherwise the lock stays and its
+     * intervals are reloaded by the next holder.
+     */
+    public void evict(Long employeeId) {
+        EmployeeIntervals intervals = byEmployee.get(employeeId);
+        if (intervals == null) {
+            return;
+        }
+        intervals.lock.lock();
+        try {
+            intervals.clear();
+            if (!intervals.lock.hasQueuedThreads()) {
+                byEmployee.remove(employeeId, intervals);
+            }
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    private EmployeeIntervals lock(Long employeeId) {
+        EmployeeIntervals intervals = byEmployee.computeIfAbsent(employeeId, id -> new EmployeeIntervals());
+        intervals.lock.lock();
+        // An evict may have dropped the entry between the lookup and the lock; retry on the current one
+        while (byEmployee.get(employeeId) != intervals) {
+            intervals.lock.unlock();
+            intervals = byEmployee.computeIfAbsent(employeeId, id -> new EmployeeIntervals());
+            intervals.lock.lock();
+        }
+        return intervals;
+    }
+
+    private EmployeeIntervals heldIntervals(Long employeeId) {
+        EmployeeIntervals intervals = byEmployee.get(employeeId);
+        if (intervals == null || !intervals.lock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Leave interval index used without holding the lock of employee " + employeeId);
+        }
+        return intervals;
+    }
+
+    private static final class EmployeeIntervals {
+
+        private static final Comparator<LeaveInterval> BY_START =
+                Comparator.comparing(LeaveInterval::startDate).thenComparing(LeaveInterval::id);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableMap<LeaveInterval, LeaveInterval> byStart = new TreeMap<>(BY_START);
+        private final Map<Long, LeaveInterval> byId = new HashMap<>();
+        // Longest interval seen, so a lookup only walks back over starts that could still reach the query range
+        private long maxSpanDays;
+        private boolean loaded;
+
+        private void put(LeaveInterval interval) {
+            byStart.put(interval, interval);
+            byId.put(interval.id(), interval);
+            maxSpanDays = Math.max(maxSpanDays, ChronoUnit.DAYS.between(interval.startDate(), interval.endDate()));
+        }
+
+        private void remove(Long leaveId) {
+            LeaveInterval interval = byId.remove(leaveId);
+            if (interval != null) {
+                byStart.remove(interval);
+            }
+        }
+
+        private void clear() {
+            byStart.clear();
+            byId.clear();
+            maxSpanDays = 0;
+            loaded = false;
+        }
+
+        private Optional<Long> findOverlap(LocalDate startDate, LocalDate endDate) {
+            LocalDate earliestReachingStart = startDate.minusDays(maxSpanDays);
+            for (LeaveInterval interval : byStart.headMap(new LeaveInterval(Long.MAX_VALUE, endDate, endDate), true)
+                    .descendingKeySet()) {
+                if (interval.startDate().isBefore(earliestReachingStart)) {
+                    break;
+                }
+                if (!interval.endDate().isBefore(startDate)) {
+                    return Optional.of(interval.id());
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.flexisaf.FlexiSAF_wk7.instrumentation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EntityLoadListenerRegistrar {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EntityLoadListenerRegistrar(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, event -> {
+                    RequestQueryStats stats = RequestQueryStats.current();
+                    if (stats != null) {
+                        stats.recordEntityLoad();
+                    }
+                });
+    }
+}
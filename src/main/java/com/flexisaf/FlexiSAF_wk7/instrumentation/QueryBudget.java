@@ -0,0 +1,19 @@
+package com.flexisaf.FlexiSAF_wk7.instrumentation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many JDBC statements one call of a controller method may run. Exceeding it is logged and counted,
+ * and fails the request when {@code app.query-stats.fail-on-budget-exceeded} is set (as it is in tests).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int max();
+}
@@ -0,0 +1,54 @@
+package com.flexisaf.FlexiSAF_wk7.instrumentation;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+
+/**
+ * Wraps every DataSource in a datasource-proxy that reports statements, JDBC time and fetched rows to the
+ * {@link RequestQueryStats} of the current request. Work done outside a request is not recorded.
+ */
+@Component
+public class QueryStatsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private static final String START_NANOS = "startNanos";
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource || isRouting(dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .beforeQuery((execInfo, queries) -> execInfo.addCustomValue(START_NANOS, System.nanoTime()))
+                .afterQuery((execInfo, queries) -> {
+                    RequestQueryStats stats = RequestQueryStats.current();
+                    if (stats != null) {
+                        stats.recordStatement(System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class));
+                    }
+                })
+                .proxyResultSet()
+                .afterMethod(context -> {
+                    RequestQueryStats stats = RequestQueryStats.current();
+                    if (stats != null && context.getTarget() instanceof ResultSet
+                            && "next".equals(context.getMethod().getName())
+                            && Boolean.TRUE.equals(context.getResult())) {
+                        stats.recordRow();
+                    }
+                })
+                .build();
+    }
+
+    // Routing data sources only hand out connections of their targets, which are wrapped themselves
+    private static boolean isRouting(DataSource dataSource) {
+        return dataSource instanceof AbstractRoutingDataSource
+                || dataSource instanceof DelegatingDataSource delegating
+                && delegating.getTargetDataSource() instanceof AbstractRoutingDataSource;
+    }
+}
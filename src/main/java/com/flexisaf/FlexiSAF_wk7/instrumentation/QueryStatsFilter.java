@@ -0,0 +1,110 @@
+package com.flexisaf.FlexiSAF_wk7.instrumentation;
+
+import com.flexisaf.FlexiSAF_wk7.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Query-Stats";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    private final boolean failOnBudgetExceeded;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${app.query-stats.header-enabled:false}") boolean headerEnabled,
+                            @Value("${app.query-stats.fail-on-budget-exceeded:false}") boolean failOnBudgetExceeded) {
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+        this.failOnBudgetExceeded = failOnBudgetExceeded;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.start();
+        StatsHeaderResponse statsResponse = headerEnabled ? new StatsHeaderResponse(response, stats) : null;
+        try {
+            chain.doFilter(request, statsResponse != null ? statsResponse : response);
+        } finally {
+            RequestQueryStats.end();
+        }
+        if (statsResponse != null) {
+            statsResponse.writeHeader();
+        }
+        record(stats);
+
+        if (stats.isOverBudget()) {
+            String message = String.format("%s ran %d statements, budget is %d",
+                    stats.getHandler(), stats.getStatements(), stats.getBudget());
+            if (failOnBudgetExceeded) {
+                throw new QueryBudgetExceededException(message);
+            }
+            log.warn("Query budget exceeded: {}", message);
+        }
+    }
+
+    private void record(RequestQueryStats stats) {
+        String handler = stats.getHandler();
+        DistributionSummary.builder("app.request.jdbc.statements").tag("handler", handler)
+                .register(meterRegistry).record(stats.getStatements());
+        Timer.builder("app.request.jdbc.time").tag("handler", handler)
+                .register(meterRegistry).record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("app.request.jdbc.rows").tag("handler", handler)
+                .register(meterRegistry).record(stats.getRowsFetched());
+        DistributionSummary.builder("app.request.entities.loaded").tag("handler", handler)
+                .register(meterRegistry).record(stats.getEntitiesLoaded());
+        if (stats.isOverBudget()) {
+            Counter.builder("app.request.query.budget.exceeded").tag("handler", handler)
+                    .register(meterRegistry).increment();
+        }
+    }
+
+    // Headers have to be in place before the body is flushed, which for JSON responses is before the filter resumes
+    private static final class StatsHeaderResponse extends OnCommittedResponseWrapper {
+
+        private final RequestQueryStats stats;
+        private boolean headerWritten;
+
+        private StatsHeaderResponse(HttpServletResponse response, RequestQueryStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        private void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                setHeader(HEADER, stats.toHeaderValue());
+            }
+            headerWritten = true;
+        }
+    }
+}
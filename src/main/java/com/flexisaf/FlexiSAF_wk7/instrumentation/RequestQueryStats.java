@@ -0,0 +1,84 @@
+package com.flexisaf.FlexiSAF_wk7.instrumentation;
+
+import java.util.Locale;
+
+/**
+ * Database work done while handling the current request. Bound to the request thread by {@link QueryStatsFilter}
+ * and fed by the JDBC proxy and the Hibernate post-load listener.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long jdbcNanos;
+    private long rowsFetched;
+    private long entitiesLoaded;
+    private String handler = "unmapped";
+    private int budget = -1;
+
+    static RequestQueryStats start() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void recordRow() {
+        rowsFetched++;
+    }
+
+    void recordEntityLoad() {
+        entitiesLoaded++;
+    }
+
+    void setHandler(String handler, int budget) {
+        this.handler = handler;
+        this.budget = budget;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public boolean isOverBudget() {
+        return budget >= 0 && statements > budget;
+    }
+
+    public String toHeaderValue() {
+        return String.format(Locale.ROOT, "statements=%d;jdbc-ms=%.3f;rows=%d;entities=%d",
+                statements, jdbcNanos / 1_000_000.0, rowsFetched, entitiesLoaded);
+    }
+}
@@ -0,0 +1,51 @@
+package com.flexisaf.FlexiSAF_wk7.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveStatusEvent;
+import com.flexisaf.FlexiSAF_wk7.entity.OutboxEvent;
+import com.flexisaf.FlexiSAF_wk7.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Records leave status changes in the outbox. Must be called inside the transaction that makes the change, so the
+ * event is committed or rolled back together with it; {@link OutboxDispatcher} delivers it afterwards.
+ */
+@Component
+public class LeaveEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public LeaveEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(LeaveStatusEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<LeaveStatusEvent> events) {
+        outboxEventRepository.saveAll(events.stream().map(this::toOutboxEvent).toList());
+    }
+
+    private OutboxEvent toOutboxEvent(LeaveStatusEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setEventType(OutboxEvent.EventType.of(event.status()));
+        outboxEvent.setAggregateId(event.leaveRequestId());
+        outboxEvent.setCreatedAt(event.occurredAt());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize leave event for " + event.leaveRequestId(), ex);
+        }
+        return outboxEvent;
+    }
+}
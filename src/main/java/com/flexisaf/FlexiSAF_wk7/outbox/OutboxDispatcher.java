@@ -0,0 +1,146 @@
+package com.flexisaf.FlexiSAF_wk7.outbox;
+
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxBacklog;
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxMessage;
+import com.flexisaf.FlexiSAF_wk7.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains the outbox in batches of {@code app.outbox.batch-size}, oldest first. A batch is removed only after every
+ * sink has accepted it; a failing sink stops the round and the same batch is retried on the next one, so events
+ * are delivered at least once, and a sink that keeps failing shows up as growing lag.
+ *
+ * <p>Events go out in id order. Each instance draws its ids from {@code outbox_events_seq} in blocks of 50, so
+ * that is the order the events were written in only while one instance writes them; with several writers, a later
+ * change to a leave can get a lower id than an earlier one, and consumers should not rely on the order across
+ * instances.
+ *
+ * <p>Expects one dispatcher per database. Several would each deliver the same events, which is still at least once
+ * but doubles the duplicates; set {@code app.outbox.dispatcher.enabled=false} on the other instances.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.dispatcher.enabled", matchIfMissing = true)
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Counter dispatched;
+    private final Timer delay;
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile OutboxBacklog backlog = new OutboxBacklog(0L, null);
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, List<OutboxSink> sinks,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.outbox.batch-size:100}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.dispatched = Counter.builder("app.outbox.dispatched")
+                .description("Events delivered to every sink and removed from the outbox")
+                .register(meterRegistry);
+        this.delay = Timer.builder("app.outbox.delay")
+                .description("Time from the leave change to its delivery")
+                .register(meterRegistry);
+        Gauge.builder("app.outbox.pending", this, dispatcher -> dispatcher.backlog.pending())
+                .description("Events waiting in the outbox")
+                .register(meterRegistry);
+        TimeGauge.builder("app.outbox.lag", this, TimeUnit.MILLISECONDS, OutboxDispatcher::lagMillis)
+                .description("Age of the oldest undelivered event")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void checkSinks() {
+        if (sinks.isEmpty()) {
+            log.warn("No outbox sinks configured; leave events will accumulate in the outbox");
+        }
+        refreshBacklog();
+    }
+
+    /**
+     * Delivers everything currently in the outbox. A call made while another one is still delivering returns
+     * straight away.
+     *
+     * @return the number of events delivered and removed
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:1s}",
+            initialDelayString = "${app.outbox.poll-interval:1s}")
+    public int dispatch() {
+        // A lock rather than a monitor, so a virtual thread waiting on the sinks does not pin its carrier
+        if (!running.tryLock()) {
+            log.debug("An outbox round is already in progress; skipping this one");
+            return 0;
+        }
+        int delivered = 0;
+        try {
+            while (!sinks.isEmpty()) {
+                List<OutboxMessage> batch = outboxEventRepository.findOldest(Limit.of(batchSize));
+                if (batch.isEmpty() || !deliver(batch)) {
+                    break;
+                }
+                outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxMessage::id).toList());
+                Instant now = Instant.now();
+                for (OutboxMessage message : batch) {
+                    delay.record(Duration.between(message.createdAt(), now));
+                }
+                dispatched.increment(batch.size());
+                delivered += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            refreshBacklog();
+            running.unlock();
+        }
+        return delivered;
+    }
+
+    private boolean deliver(List<OutboxMessage> batch) {
+        for (OutboxSink sink : sinks) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                sink.deliver(batch);
+                sample.stop(meterRegistry.timer("app.outbox.delivery", "sink", sink.name(), "outcome", "success"));
+            } catch (Exception ex) {
+                sample.stop(meterRegistry.timer("app.outbox.delivery", "sink", sink.name(), "outcome", "failure"));
+                log.warn("Outbox sink {} failed on events {}..{}; retrying next round", sink.name(),
+                        batch.get(0).id(), batch.get(batch.size() - 1).id(), ex);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refreshBacklog() {
+        backlog = outboxEventRepository.backlog();
+    }
+
+    private double lagMillis() {
+        Instant oldest = backlog.oldestCreatedAt();
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis();
+    }
+}
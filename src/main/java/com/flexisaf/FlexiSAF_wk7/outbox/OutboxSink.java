@@ -0,0 +1,24 @@
+package com.flexisaf.FlexiSAF_wk7.outbox;
+
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * A downstream destination for outbox events. Every {@code OutboxSink} bean receives every event.
+ *
+ * <p>Delivery is at least once: if any sink throws, or the process stops before the batch is removed from the
+ * outbox, the whole batch is offered to every sink again on the next round. Sinks should drop messages whose
+ * {@link OutboxMessage#id()} they have already seen.
+ */
+public interface OutboxSink {
+
+    /**
+     * Delivers a batch in outbox order. Returning normally means the batch is durably accepted.
+     */
+    void deliver(List<OutboxMessage> batch) throws Exception;
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
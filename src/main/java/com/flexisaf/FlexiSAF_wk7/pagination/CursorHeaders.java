@@ -0,0 +1,24 @@
+package com.flexisaf.FlexiSAF_wk7.pagination;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+public final class CursorHeaders {
+
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private CursorHeaders() {
+    }
+
+    public static HttpHeaders of(CursorPage<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            headers.add(NEXT_CURSOR, page.nextCursor());
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,10 @@
+package com.flexisaf.FlexiSAF_wk7.pagination;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
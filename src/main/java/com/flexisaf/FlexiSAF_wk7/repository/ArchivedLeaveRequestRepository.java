@@ -0,0 +1,50 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion;
+import com.flexisaf.FlexiSAF_wk7.entity.ArchivedLeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedLeaveRequestRepository extends JpaRepository<ArchivedLeaveRequest, Long>,
+        ArchivedLeaveRequestSearchRepository {
+    String VIEW_SELECT = "select new com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView(l.id, e.id, e.firstName, " +
+            "e.lastName, e.email, e.department, l.startDate, l.endDate, l.leaveType, l.status, l.reason, " +
+            "l.managerComment, l.dateApplied, l.dateReviewed, l.version, e.version) from ArchivedLeaveRequest l join l.employee e";
+
+    @Query(VIEW_SELECT + " where l.id > :afterId order by l.id")
+    List<LeaveRequestView> findViewsAfter(Long afterId, Limit limit);
+
+    @Query(VIEW_SELECT + " where l.id = :id")
+    Optional<LeaveRequestView> findViewById(Long id);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion(l.version, e.version) " +
+            "from ArchivedLeaveRequest l join l.employee e where l.id = :id")
+    Optional<LeaveVersion> findVersionById(Long id);
+
+    @Query(VIEW_SELECT + " where e.id = :employeeId order by l.id")
+    List<LeaveRequestView> findViewsByEmployeeId(Long employeeId);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange(l.employee.id, l.leaveType, l.startDate, " +
+            "l.endDate, l.status) from ArchivedLeaveRequest l where l.employee.id = :employeeId and l.status in :statuses")
+    List<LeaveBalanceChange> findBalanceHistory(Long employeeId, Collection<LeaveRequest.LeaveStatus> statuses);
+
+    // Copies the rows server side; the caller deletes them from leave_requests in the same transaction
+    @Modifying
+    @Query("insert into ArchivedLeaveRequest (id, version, employee, startDate, endDate, leaveType, status, reason, " +
+            "managerComment, dateApplied, dateReviewed, archivedAt) " +
+            "select l.id, l.version, l.employee, l.startDate, l.endDate, l.leaveType, l.status, l.reason, " +
+            "l.managerComment, l.dateApplied, l.dateReviewed, :archivedAt from LeaveRequest l where l.id in :ids")
+    int copyFromLeaveRequests(Collection<Long> ids, Instant archivedAt);
+}
@@ -0,0 +1,16 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.entity.ArchivedLeaveRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ArchivedLeaveRequestSearchRepository {
+
+    /**
+     * Keyset page of archived leave views matching {@code spec}, ordered by id, in a single statement.
+     */
+    List<LeaveRequestView> findViews(Specification<ArchivedLeaveRequest> spec, Long afterId, Limit limit);
+}
@@ -0,0 +1,23 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.entity.ArchivedLeaveRequest;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+class ArchivedLeaveRequestSearchRepositoryImpl implements ArchivedLeaveRequestSearchRepository {
+
+    private final EntityManager entityManager;
+
+    ArchivedLeaveRequestSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<LeaveRequestView> findViews(Specification<ArchivedLeaveRequest> spec, Long afterId, Limit limit) {
+        return LeaveRequestSearchRepositoryImpl.findViews(entityManager, ArchivedLeaveRequest.class, spec, afterId, limit);
+    }
+}
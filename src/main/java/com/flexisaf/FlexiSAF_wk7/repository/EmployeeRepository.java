@@ -1,11 +1,72 @@
 package com.flexisaf.FlexiSAF_wk7.repository;
 
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    // The email checks are native so they also see offboarded employees, which @SQLRestriction hides from JPQL but
+    // whose rows still hold their email under the unique constraint
+    @Query(value = "select exists (select 1 from employees where email = :email)", nativeQuery = true)
     boolean existsByEmail(String email);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem(e.id, e.version, e.firstName, e.lastName, " +
+            "e.email, e.phoneNumber, e.department, e.position, e.salary, e.dateofHire, e.status, e.active) " +
+            "from Employee e where e.id > :afterId order by e.id")
+    List<EmployeeListItem> findListItemsAfter(Long afterId, Limit limit);
+
+    @Query(value = "select email from employees where email in :emails", nativeQuery = true)
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary(e.id, e.firstName, e.lastName, e.email, " +
+            "e.department, e.position, e.status, e.active) from Employee e where e.id = :id")
+    Optional<EmployeeSummary> findSummaryById(Long id);
+
+    // Detail reads want the lazy address too; the graph loads it in the same statement
+    @EntityGraph(attributePaths = "address")
+    @Query("select e from Employee e where e.id = :id")
+    Optional<Employee> findWithAddressById(Long id);
+
+    @Query("select e.version from Employee e where e.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary(e.id, e.firstName, e.lastName, e.email, " +
+            "e.department, e.position, e.status, e.active) from Employee e")
+    List<EmployeeSummary> findAllSummaries();
+
+    @Query("select e.id from Employee e order by e.id")
+    List<Long> findAllIds();
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary(e.id, e.firstName, e.lastName, e.email, " +
+            "e.department, e.position, e.status, e.active) from Employee e where e.id in :ids order by e.id")
+    List<EmployeeSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary(e.id, e.firstName, e.lastName, e.email, " +
+            "e.department, e.position, e.status, e.active) from Employee e where e.department = :department order by e.id")
+    List<EmployeeSummary> findSummariesByDepartment(String department);
+
+    @Modifying
+    @Query("update Employee e set e.deletedAt = :deletedAt, e.active = false, e.version = e.version + 1 " +
+            "where e.id in :ids")
+    int markOffboarded(Collection<Long> ids, Instant deletedAt);
+
+    // Their leave rows must be gone first; archived leave goes with them through its foreign key
+    @Modifying
+    @Query("delete from Employee e where e.id in :ids")
+    int deleteByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,36 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveBalance;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, LeaveBalance.Key> {
+
+    // A prefix of the primary key, so one index range scan returns every leave type of the year
+    @Query("select b from LeaveBalance b where b.id.employeeId = :employeeId and b.id.year = :year")
+    List<LeaveBalance> findByEmployeeIdAndYear(Long employeeId, int year);
+
+    // Gives writers a row to lock even on first use; a row another transaction is inserting makes this wait for it
+    // rather than fail on the primary key
+    @Modifying
+    @Query("insert into LeaveBalance (id.employeeId, id.year, id.leaveType, pendingDays, usedDays) " +
+            "values (:employeeId, :year, :leaveType, 0, 0) on conflict do nothing")
+    int insertIfAbsent(Long employeeId, int year, LeaveRequest.LeaveType leaveType);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from LeaveBalance b where b.id.employeeId in :employeeIds and b.id.year in :years")
+    List<LeaveBalance> lockByEmployeeIdInAndYearIn(Collection<Long> employeeIds, Collection<Integer> years);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from LeaveBalance b where b.id.employeeId = :employeeId")
+    List<LeaveBalance> lockByEmployeeId(Long employeeId);
+}
@@ -1,12 +1,120 @@
 package com.flexisaf.FlexiSAF_wk7.repository;
 
+import com.flexisaf.FlexiSAF_wk7.dto.ClosedLeave;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveCount;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveInterval;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSpan;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion;
+import com.flexisaf.FlexiSAF_wk7.dto.OpenLeave;
+import com.flexisaf.FlexiSAF_wk7.dto.PendingLeave;
 import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long> {
+public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long>, LeaveRequestSearchRepository {
+    String VIEW_SELECT = "select new com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView(l.id, e.id, e.firstName, " +
+            "e.lastName, e.email, e.department, l.startDate, l.endDate, l.leaveType, l.status, l.reason, " +
+            "l.managerComment, l.dateApplied, l.dateReviewed, l.version, e.version) from LeaveRequest l join l.employee e";
+
     List<LeaveRequest> findByEmployeeId(Long employeeId);
+
+    @Query(VIEW_SELECT + " order by l.id")
+    List<LeaveRequestView> findAllViews();
+
+    @Query(VIEW_SELECT + " where l.id > :afterId order by l.id")
+    List<LeaveRequestView> findViewsAfter(Long afterId, Limit limit);
+
+    @Query(VIEW_SELECT + " where l.id = :id")
+    Optional<LeaveRequestView> findViewById(Long id);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion(l.version, e.version) " +
+            "from LeaveRequest l join l.employee e where l.id = :id")
+    Optional<LeaveVersion> findVersionById(Long id);
+
+    @Query(VIEW_SELECT + " where e.id = :employeeId order by l.id")
+    List<LeaveRequestView> findViewsByEmployeeId(Long employeeId);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveInterval(l.id, l.startDate, l.endDate) " +
+            "from LeaveRequest l where l.employee.id = :employeeId and l.status in :statuses")
+    List<LeaveInterval> findIntervalsByEmployeeIdAndStatusIn(Long employeeId, Collection<LeaveRequest.LeaveStatus> statuses);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveSpan(e.id, e.department, l.startDate, l.endDate) " +
+            "from LeaveRequest l join l.employee e where l.status = :status")
+    List<LeaveSpan> findSpansByStatus(LeaveRequest.LeaveStatus status);
+
+    @Query("select l.employee.id from LeaveRequest l where l.id = :id")
+    Optional<Long> findEmployeeIdById(Long id);
+
+    @Query("select distinct l.employee.id from LeaveRequest l where l.id in :ids")
+    List<Long> findEmployeeIdsByIdIn(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from LeaveRequest l where l.id = :id")
+    Optional<LeaveRequest> lockById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.PendingLeave(l.id, e.id, e.department, l.leaveType, l.startDate, l.endDate) " +
+            "from LeaveRequest l join l.employee e where l.id in :ids and l.status = " +
+            "com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest.LeaveStatus.PENDING")
+    List<PendingLeave> lockPendingByIdIn(Collection<Long> ids);
+
+    // end_date < cutoff implies start_date < cutoff; stating it lets the (status, start_date) index bound the scan.
+    // Rows a request is changing right now are skipped rather than waited for: Hibernate reads a lock timeout of -2
+    // as SKIP LOCKED (the value of the deprecated LockOptions.SKIP_LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.ClosedLeave(l.id, e.id, e.department, l.leaveType, l.status, " +
+            "l.startDate, l.endDate) from LeaveRequest l join l.employee e " +
+            "where l.status in :statuses and l.startDate < :cutoff and l.endDate < :cutoff order by l.id")
+    List<ClosedLeave> lockClosedBefore(Collection<LeaveRequest.LeaveStatus> statuses, LocalDate cutoff, Limit limit);
+
+    // Leave an offboarded employee will no longer take: anything pending, and approved leave that has not started
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.OpenLeave(l.id, l.employee.id, l.leaveType, l.status, " +
+            "l.startDate, l.endDate) from LeaveRequest l where l.employee.id in :employeeIds and (l.status = " +
+            "com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest.LeaveStatus.PENDING or (l.status = " +
+            "com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest.LeaveStatus.APPROVED and l.startDate > :today))")
+    List<OpenLeave> findOpenByEmployeeIdIn(Collection<Long> employeeIds, LocalDate today);
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange(l.employee.id, l.leaveType, l.startDate, " +
+            "l.endDate, l.status) from LeaveRequest l where l.employee.id = :employeeId and l.status in :statuses")
+    List<LeaveBalanceChange> findBalanceHistory(Long employeeId, Collection<LeaveRequest.LeaveStatus> statuses);
+
+    @Modifying
+    @Query("delete from LeaveRequest l where l.employee.id in :employeeIds")
+    int deleteByEmployeeIdIn(Collection<Long> employeeIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LeaveRequest l set l.status = :status, l.managerComment = :managerComment, " +
+            "l.dateReviewed = :dateReviewed, l.version = l.version + 1 where l.id in :ids")
+    int updateReview(Collection<Long> ids, LeaveRequest.LeaveStatus status, String managerComment,
+                     LocalDate dateReviewed);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select l from LeaveRequest l join fetch l.employee order by l.id")
+    Stream<LeaveRequest> streamAllWithEmployee();
+
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.LeaveCount(e.id, e.department, l.leaveType, l.status, count(l)) " +
+            "from LeaveRequest l join l.employee e group by e.id, e.department, l.leaveType, l.status")
+    List<LeaveCount> countByEmployeeTypeAndStatus();
 }
@@ -0,0 +1,52 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Criteria version of LeaveRequestRepository.VIEW_SELECT, so search results share the listing's read model
+class LeaveRequestSearchRepositoryImpl implements LeaveRequestSearchRepository {
+
+    private final EntityManager entityManager;
+
+    LeaveRequestSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<LeaveRequestView> findViews(Specification<LeaveRequest> spec, Long afterId, Limit limit) {
+        return findViews(entityManager, LeaveRequest.class, spec, afterId, limit);
+    }
+
+    // Shared with the archive, whose entity has the same attribute names
+    static <T> List<LeaveRequestView> findViews(EntityManager entityManager, Class<T> entity, Specification<T> spec,
+                                                Long afterId, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LeaveRequestView> query = cb.createQuery(LeaveRequestView.class);
+        Root<T> l = query.from(entity);
+        Join<T, Employee> e = l.join("employee");
+        query.select(cb.construct(LeaveRequestView.class, l.get("id"), e.get("id"), e.get("firstName"),
+                e.get("lastName"), e.get("email"), e.get("department"), l.get("startDate"), l.get("endDate"),
+                l.get("leaveType"), l.get("status"), l.get("reason"), l.get("managerComment"), l.get("dateApplied"),
+                l.get("dateReviewed"), l.get("version"), e.get("version")));
+
+        Predicate after = cb.greaterThan(l.get("id"), afterId);
+        Predicate filter = spec.toPredicate(l, query, cb);
+        query.where(filter == null ? after : cb.and(filter, after));
+        query.orderBy(cb.asc(l.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSearchCriteria;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leave search predicates. The status and employee filters each lead a composite index with {@code start_date},
+ * so combined with a date range they stay index range scans. They name attributes only, so they apply to the
+ * archive as well as to live leave requests.
+ */
+public final class LeaveRequestSpecifications {
+
+    private LeaveRequestSpecifications() {
+    }
+
+    public static <T> Specification<T> matching(LeaveSearchCriteria criteria) {
+        List<Specification<T>> specs = new ArrayList<>();
+        if (criteria.status() != null) {
+            specs.add(hasStatus(criteria.status()));
+        }
+        if (criteria.leaveType() != null) {
+            specs.add(hasLeaveType(criteria.leaveType()));
+        }
+        if (criteria.employeeId() != null) {
+            specs.add(forEmployee(criteria.employeeId()));
+        }
+        if (criteria.department() != null) {
+            specs.add(inDepartment(criteria.department()));
+        }
+        if (criteria.from() != null || criteria.to() != null) {
+            specs.add(overlaps(criteria.from(), criteria.to()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static <T> Specification<T> hasStatus(LeaveRequest.LeaveStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static <T> Specification<T> hasLeaveType(LeaveRequest.LeaveType leaveType) {
+        return (root, query, cb) -> cb.equal(root.get("leaveType"), leaveType);
+    }
+
+    // Compares the foreign key column; no join needed
+    public static <T> Specification<T> forEmployee(Long employeeId) {
+        return (root, query, cb) -> cb.equal(root.get("employee").get("id"), employeeId);
+    }
+
+    public static <T> Specification<T> inDepartment(String department) {
+        return (root, query, cb) -> cb.equal(employee(root).get("department"), department);
+    }
+
+    public static <T> Specification<T> overlaps(LocalDate from, LocalDate to) {
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThanOrEqualTo(root.get("startDate"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("endDate"), from);
+            }
+            return cb.and(cb.lessThanOrEqualTo(root.get("startDate"), to),
+                    cb.greaterThanOrEqualTo(root.get("endDate"), from));
+        };
+    }
+
+    // Reuses the join the projection already made instead of joining employees a second time
+    @SuppressWarnings("unchecked")
+    private static <T> Join<T, Employee> employee(Root<T> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("employee"))
+                .map(join -> (Join<T, Employee>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("employee", JoinType.INNER));
+    }
+}
@@ -0,0 +1,27 @@
+package com.flexisaf.FlexiSAF_wk7.repository;
+
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxBacklog;
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxMessage;
+import com.flexisaf.FlexiSAF_wk7.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // The dispatcher's reads run in read-write transactions so they always go to the primary. A lagging replica
+    // would still list events the dispatcher has already delivered and deleted.
+    @Transactional
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.OutboxMessage(o.id, o.eventType, o.aggregateId, o.payload, " +
+            "o.createdAt) from OutboxEvent o order by o.id")
+    List<OutboxMessage> findOldest(Limit limit);
+
+    @Transactional
+    @Query("select new com.flexisaf.FlexiSAF_wk7.dto.OutboxBacklog(count(o), min(o.createdAt)) from OutboxEvent o")
+    OutboxBacklog backlog();
+}
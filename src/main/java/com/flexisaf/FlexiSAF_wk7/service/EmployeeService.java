@@ -1,13 +1,32 @@
 package com.flexisaf.FlexiSAF_wk7.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flexisaf.FlexiSAF_wk7.dto.CacheStatistics;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeImportReport;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardResult;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
 
 import java.util.List;
 
 public interface EmployeeService {
     Employee createEmployee(Employee employee);
     Employee getEmployeeById(Long id);
+    EmployeeSummary getEmployeeSummary(Long id);
+    Long getEmployeeVersion(Long id);
+    String getCollectionVersion();
+    void ensureEmployeeExists(Long id);
     List<Employee> getAllEmployees();
+    CursorPage<EmployeeListItem> getEmployees(String after, int limit);
     Employee updateEmployee(Long id, Employee employee);
+    Employee patchEmployee(Long id, JsonNode patch);
     void deleteEmployee(Long id);
+    OffboardResult offboardEmployee(Long id, boolean purge);
+    OffboardResult offboardEmployees(OffboardRequest request);
+    EmployeeImportReport importEmployees(List<Employee> employees);
+    CacheStatistics getCacheStatistics();
+    List<EmployeeSummary> searchEmployees(String query, int limit);
 }
@@ -0,0 +1,8 @@
+package com.flexisaf.FlexiSAF_wk7.service;
+
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceSummary;
+
+public interface LeaveBalanceService {
+    LeaveBalanceSummary getLeaveBalances(Long employeeId, int year);
+    int rebuildLeaveBalances();
+}
@@ -1,13 +1,33 @@
 package com.flexisaf.FlexiSAF_wk7.service;
 
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewResult;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveDashboard;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSearchCriteria;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion;
+import com.flexisaf.FlexiSAF_wk7.dto.TeamAvailability;
 import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LeaveRequestService {
     LeaveRequest applyLeaveRequest(LeaveRequest leaveRequest);
-    LeaveRequest getLeaveRequest(Long id);
-    List<LeaveRequest> getAllLeaveRequests();
-    List<LeaveRequest> getLeaveRequestsByEmployee(Long employeeId);
+    LeaveRequestView getLeaveRequest(Long id, boolean includeArchived);
+    LeaveVersion getLeaveVersion(Long id, boolean includeArchived);
+    String getCollectionVersion();
+    List<LeaveRequestView> getAllLeaveRequests();
+    CursorPage<LeaveRequestView> getLeaveRequests(String after, int limit, boolean includeArchived);
+    CursorPage<LeaveRequestView> searchLeaveRequests(LeaveSearchCriteria criteria, String after, int limit,
+                                                     boolean includeArchived);
+    List<LeaveRequestView> getLeaveRequestsByEmployee(Long employeeId, boolean includeArchived);
     LeaveRequest reviewLeaveRequest(Long id, LeaveRequest leaveRequest);
+    LeaveRequest cancelLeaveRequest(Long id);
+    BulkReviewResult reviewLeaveRequests(BulkReviewRequest request);
+    long exportLeaveRequests(Consumer<LeaveRequest> sink);
+    TeamAvailability getTeamAvailability(String department, LocalDate from, LocalDate to);
+    LeaveDashboard getDashboard();
 }
@@ -1,21 +1,111 @@
 package com.flexisaf.FlexiSAF_wk7.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flexisaf.FlexiSAF_wk7.balance.LeaveBalanceLedger;
+import com.flexisaf.FlexiSAF_wk7.cache.EmployeeCache;
+import com.flexisaf.FlexiSAF_wk7.config.MetricsConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.CacheStatistics;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeImportReport;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeImportReport.RowResult;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeImportReport.RowStatus;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeSummary;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveStatusEvent;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.OffboardResult;
+import com.flexisaf.FlexiSAF_wk7.dto.OpenLeave;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions.Collection;
 import com.flexisaf.FlexiSAF_wk7.exception.ResourceNotFoundException;
+import com.flexisaf.FlexiSAF_wk7.index.DepartmentAvailabilityIndex;
+import com.flexisaf.FlexiSAF_wk7.index.EmployeeSearchIndex;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveIntervalIndex;
+import com.flexisaf.FlexiSAF_wk7.outbox.LeaveEventOutbox;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
+import com.flexisaf.FlexiSAF_wk7.pagination.Cursors;
 import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
 import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import com.flexisaf.FlexiSAF_wk7.util.JsonMergePatch;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.annotation.Reference;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class EmployeeServiceImpl implements EmployeeService {
 
+    private static final int EMAIL_LOOKUP_CHUNK = 1000;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final int OFFBOARD_CHUNK = 1000;
+    private static final String OFFBOARD_COMMENT = "Employee offboarded";
+
     private final EmployeeRepository employeeRepository;
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final EmployeeCache employeeCache;
+    private final DepartmentAvailabilityIndex departmentAvailabilityIndex;
+    private final EmployeeSearchIndex employeeSearchIndex;
+    private final LeaveCounters leaveCounters;
+    private final LeaveIntervalIndex leaveIntervalIndex;
+    private final LeaveEventOutbox leaveEventOutbox;
+    private final LeaveBalanceLedger leaveBalanceLedger;
+    private final CollectionVersions collectionVersions;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int importBatchSize;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, LeaveRequestRepository leaveRequestRepository,
+                               EmployeeCache employeeCache, DepartmentAvailabilityIndex departmentAvailabilityIndex,
+                               EmployeeSearchIndex employeeSearchIndex, LeaveCounters leaveCounters,
+                               LeaveIntervalIndex leaveIntervalIndex, LeaveEventOutbox leaveEventOutbox,
+                               LeaveBalanceLedger leaveBalanceLedger,
+                               CollectionVersions collectionVersions, EntityManager entityManager,
+                               Validator validator, ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.employee-import.batch-size:100}") int importBatchSize) {
         this.employeeRepository = employeeRepository;
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.employeeCache = employeeCache;
+        this.departmentAvailabilityIndex = departmentAvailabilityIndex;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.leaveCounters = leaveCounters;
+        this.leaveIntervalIndex = leaveIntervalIndex;
+        this.leaveEventOutbox = leaveEventOutbox;
+        this.leaveBalanceLedger = leaveBalanceLedger;
+        this.collectionVersions = collectionVersions;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importBatchSize = importBatchSize;
     }
 
     @Override
@@ -23,41 +113,297 @@ public class EmployeeServiceImpl implements EmployeeService {
         if(employeeRepository.existsByEmail(employee.getEmail())) {
             throw new IllegalArgumentException("Employee already exists");
         }
-        return employeeRepository.save(employee);
+        Employee savedEmployee = employeeRepository.save(employee);
+        employeeSearchIndex.put(EmployeeSummary.of(savedEmployee));
+        collectionVersions.bump(Collection.EMPLOYEES);
+        return savedEmployee;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees(){
         return employeeRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EmployeeListItem> getEmployees(String after, int limit) {
+        List<EmployeeListItem> rows = employeeRepository.findListItemsAfter(Cursors.decode(after), Cursors.fetchLimit(limit));
+        return Cursors.page(rows, limit, EmployeeListItem::id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Employee getEmployeeById(Long id) {
-        return employeeRepository.findById(id)
+        return employeeRepository.findWithAddressById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id " + id));
+    }
+
+    @Override
+    public EmployeeSummary getEmployeeSummary(Long id) {
+        return employeeCache.get(id, employeeRepository::findSummaryById)
+                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getEmployeeVersion(Long id) {
+        return employeeRepository.findVersionById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id " + id));
     }
 
+    @Override
+    public String getCollectionVersion() {
+        return collectionVersions.current(Collection.EMPLOYEES);
+    }
+
+    @Override
+    public void ensureEmployeeExists(Long id) {
+        getEmployeeSummary(id);
+    }
+
     @Override
     public Employee updateEmployee(Long id, Employee employeeDetails) {
         Employee employee = getEmployeeById(id);
+        String previousDepartment = employee.getDepartment();
+        copyFields(employeeDetails, employee);
+        return saveUpdated(employee, previousDepartment);
+    }
+
+    @Override
+    public Employee patchEmployee(Long id, JsonNode patch) {
+        if (!patch.isObject()) {
+            throw new IllegalArgumentException("Merge patch must be a JSON object");
+        }
+        JsonNode patchedId = patch.get("id");
+        if (patchedId != null && !(patchedId.canConvertToLong() && patchedId.asLong() == id)) {
+            throw new IllegalArgumentException("Employee id cannot be changed");
+        }
 
-        employee.setFirstName(employeeDetails.getFirstName());
-        employee.setLastName(employeeDetails.getLastName());
-        employee.setEmail(employeeDetails.getEmail());
-        employee.setPhoneNumber(employeeDetails.getPhoneNumber());
-        employee.setDepartment(employeeDetails.getDepartment());
-        employee.setPosition(employeeDetails.getPosition());
-        employee.setSalary(employeeDetails.getSalary());
-        employee.setStatus(employeeDetails.getStatus());
-        employee.setActive(employeeDetails.isActive());
-        employee.setAddress(employeeDetails.getAddress());
+        // The version is read-only; a client echoing it back should not count as a change
+        ObjectNode changes = ((ObjectNode) patch).deepCopy();
+        changes.remove("version");
 
-        return employeeRepository.save(employee);
+        Employee employee = getEmployeeById(id);
+        JsonNode current = objectMapper.valueToTree(employee);
+        JsonNode merged = JsonMergePatch.apply(current, changes);
+        if (merged.equals(current)) {
+            return employee;
+        }
+
+        Employee patched;
+        try {
+            patched = objectMapper.treeToValue(merged, Employee.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Invalid merge patch: " + ex.getOriginalMessage());
+        }
+        Set<ConstraintViolation<Employee>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(describe(violations));
+        }
+
+        String previousDepartment = employee.getDepartment();
+        copyFields(patched, employee);
+        employee.setDateofHire(patched.getDateofHire());
+        return saveUpdated(employee, previousDepartment);
+    }
+
+    // With @DynamicUpdate the UPDATE only lists the columns that differ, and there is none if nothing does.
+    // The leave counters move the employee's tally as the update commits.
+    private Employee saveUpdated(Employee employee, String previousDepartment) {
+        Long id = employee.getId();
+        Employee updatedEmployee = transactionTemplate.execute(status -> {
+            Employee saved = employeeRepository.save(employee);
+            leaveCounters.moveEmployee(id, saved.getDepartment());
+            return saved;
+        });
+        employeeCache.invalidate(id);
+        departmentAvailabilityIndex.moveEmployee(id, previousDepartment, updatedEmployee.getDepartment());
+        employeeSearchIndex.put(EmployeeSummary.of(updatedEmployee));
+        // Leave representations embed the employee's name, email and department
+        collectionVersions.bump(Collection.EMPLOYEES, Collection.LEAVES);
+        return updatedEmployee;
+    }
+
+    private static void copyFields(Employee from, Employee to) {
+        to.setFirstName(from.getFirstName());
+        to.setLastName(from.getLastName());
+        to.setEmail(from.getEmail());
+        to.setPhoneNumber(from.getPhoneNumber());
+        to.setDepartment(from.getDepartment());
+        to.setPosition(from.getPosition());
+        to.setSalary(from.getSalary());
+        to.setStatus(from.getStatus());
+        to.setActive(from.isActive());
+        to.setAddress(from.getAddress());
     }
 
     @Override
+    @Transactional
     public void deleteEmployee(Long id) {
-        Employee employee = getEmployeeById(id);
-        employeeRepository.delete(employee);
+        offboard(findOffboardTarget(id), true);
+    }
+
+    @Override
+    @Transactional
+    public OffboardResult offboardEmployee(Long id, boolean purge) {
+        return offboard(findOffboardTarget(id), purge);
+    }
+
+    @Override
+    @Transactional
+    public OffboardResult offboardEmployees(OffboardRequest request) {
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        boolean byDepartment = request.department() != null && !request.department().isBlank();
+        if (byIds == byDepartment) {
+            throw new IllegalArgumentException("Offboard either a list of employee ids or a department");
+        }
+        List<EmployeeSummary> employees = byIds
+                ? employeeRepository.findSummariesByIdIn(Set.copyOf(request.ids()))
+                : employeeRepository.findSummariesByDepartment(request.department());
+        return offboard(employees, request.purge());
+    }
+
+    private List<EmployeeSummary> findOffboardTarget(Long id) {
+        List<EmployeeSummary> employees = employeeRepository.findSummariesByIdIn(List.of(id));
+        if (employees.isEmpty()) {
+            throw new ResourceNotFoundException("Employee not found with id " + id);
+        }
+        return employees;
+    }
+
+    // A few set-based statements per chunk of employees, however much leave they have; nothing is loaded as an entity
+    private OffboardResult offboard(List<EmployeeSummary> employees, boolean purge) {
+        List<Long> ids = employees.stream().map(EmployeeSummary::id).toList();
+        LocalDate today = LocalDate.now();
+        Instant now = Instant.now();
+        int cancelled = 0;
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += OFFBOARD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + OFFBOARD_CHUNK, ids.size()));
+            if (purge) {
+                deleted += leaveRequestRepository.deleteByEmployeeIdIn(chunk);
+                employeeRepository.deleteByIdIn(chunk);
+            } else {
+                cancelled += cancelOpenLeave(chunk, today, now);
+                employeeRepository.markOffboarded(chunk, now);
+            }
+        }
+        if (!employees.isEmpty()) {
+            // The counters hold their own changes until the commit
+            employees.forEach(employee -> leaveCounters.removeEmployee(employee.id()));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (EmployeeSummary employee : employees) {
+                        employeeCache.invalidate(employee.id());
+                        departmentAvailabilityIndex.removeEmployee(employee.id(), employee.department());
+                        employeeSearchIndex.remove(employee.id());
+                        leaveIntervalIndex.evict(employee.id());
+                    }
+                    collectionVersions.bump(Collection.EMPLOYEES, Collection.LEAVES);
+                }
+            });
+        }
+        return new OffboardResult(ids, purge, cancelled, deleted);
+    }
+
+    private int cancelOpenLeave(List<Long> employeeIds, LocalDate today, Instant now) {
+        List<OpenLeave> open = leaveRequestRepository.findOpenByEmployeeIdIn(employeeIds, today);
+        if (open.isEmpty()) {
+            return 0;
+        }
+        leaveRequestRepository.updateReview(open.stream().map(OpenLeave::id).toList(),
+                LeaveRequest.LeaveStatus.CANCELLED, OFFBOARD_COMMENT, today);
+        leaveEventOutbox.appendAll(open.stream()
+                .map(leave -> new LeaveStatusEvent(leave.id(), leave.employeeId(), leave.leaveType(),
+                        leave.startDate(), leave.endDate(), leave.status(), LeaveRequest.LeaveStatus.CANCELLED,
+                        OFFBOARD_COMMENT, now))
+                .toList());
+        leaveBalanceLedger.record(open.stream()
+                .map(leave -> new LeaveBalanceChange(leave.employeeId(), leave.leaveType(), leave.startDate(),
+                        leave.endDate(), leave.status(), LeaveRequest.LeaveStatus.CANCELLED))
+                .toList());
+        return open.size();
+    }
+
+    @Override
+    @Transactional
+    public EmployeeImportReport importEmployees(List<Employee> employees) {
+        Set<String> existingEmails = findExistingEmails(employees);
+        Set<String> seenEmails = new HashSet<>();
+        List<RowResult> rows = new ArrayList<>(employees.size());
+        List<EmployeeSummary> created = new ArrayList<>();
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(importBatchSize);
+        int pending = 0;
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            int row = i + 1;
+            Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
+            if (!violations.isEmpty()) {
+                rows.add(RowResult.rejected(row, employee.getEmail(), RowStatus.INVALID, describe(violations)));
+            } else if (existingEmails.contains(employee.getEmail()) || !seenEmails.add(employee.getEmail())) {
+                rows.add(RowResult.rejected(row, employee.getEmail(), RowStatus.DUPLICATE, "Employee already exists"));
+            } else {
+                employee.setId(null);
+                entityManager.persist(employee);
+                rows.add(RowResult.created(row, employee.getEmail(), employee.getId()));
+                created.add(EmployeeSummary.of(employee));
+                if (++pending == importBatchSize) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    pending = 0;
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        // Only searchable once the rows are actually committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                employeeSearchIndex.putAll(created);
+                collectionVersions.bump(Collection.EMPLOYEES);
+            }
+        });
+        return EmployeeImportReport.of(rows);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return employeeCache.stats();
+    }
+
+    @Override
+    public List<EmployeeSummary> searchEmployees(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        return employeeSearchIndex.search(query, limit);
+    }
+
+    private Set<String> findExistingEmails(List<Employee> employees) {
+        List<String> emails = employees.stream()
+                .map(Employee::getEmail)
+                .filter(email -> email != null && !email.isBlank())
+                .distinct()
+                .toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < emails.size(); from += EMAIL_LOOKUP_CHUNK) {
+            existing.addAll(employeeRepository.findExistingEmails(
+                    emails.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK, emails.size()))));
+        }
+        return existing;
+    }
+
+    private static String describe(Set<ConstraintViolation<Employee>> violations) {
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining("; "));
     }
 }
@@ -0,0 +1,121 @@
+package com.flexisaf.FlexiSAF_wk7.service.impl;
+
+import com.flexisaf.FlexiSAF_wk7.balance.LeaveBalanceLedger;
+import com.flexisaf.FlexiSAF_wk7.balance.LeaveEntitlements;
+import com.flexisaf.FlexiSAF_wk7.config.MetricsConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceSummary;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceSummary.TypeBalance;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveBalance;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.repository.ArchivedLeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveBalanceRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveBalanceService;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class LeaveBalanceServiceImpl implements LeaveBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveBalanceServiceImpl.class);
+
+    private static final Set<LeaveRequest.LeaveStatus> COUNTED =
+            EnumSet.of(LeaveRequest.LeaveStatus.PENDING, LeaveRequest.LeaveStatus.APPROVED);
+
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final ArchivedLeaveRequestRepository archivedLeaveRequestRepository;
+    private final EmployeeRepository employeeRepository;
+    private final LeaveBalanceLedger leaveBalanceLedger;
+    private final LeaveEntitlements entitlements;
+    private final TransactionTemplate transactionTemplate;
+
+    public LeaveBalanceServiceImpl(LeaveBalanceRepository leaveBalanceRepository,
+                                   LeaveRequestRepository leaveRequestRepository,
+                                   ArchivedLeaveRequestRepository archivedLeaveRequestRepository,
+                                   EmployeeRepository employeeRepository, LeaveBalanceLedger leaveBalanceLedger,
+                                   LeaveEntitlements entitlements, PlatformTransactionManager transactionManager) {
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.archivedLeaveRequestRepository = archivedLeaveRequestRepository;
+        this.employeeRepository = employeeRepository;
+        this.leaveBalanceLedger = leaveBalanceLedger;
+        this.entitlements = entitlements;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LeaveBalanceSummary getLeaveBalances(Long employeeId, int year) {
+        Map<LeaveRequest.LeaveType, LeaveBalance> rows = new EnumMap<>(LeaveRequest.LeaveType.class);
+        for (LeaveBalance balance : leaveBalanceRepository.findByEmployeeIdAndYear(employeeId, year)) {
+            rows.put(balance.getId().getLeaveType(), balance);
+        }
+        List<TypeBalance> balances = Arrays.stream(LeaveRequest.LeaveType.values())
+                .map(type -> {
+                    LeaveBalance row = rows.get(type);
+                    int used = row == null ? 0 : row.getUsedDays();
+                    int pending = row == null ? 0 : row.getPendingDays();
+                    Integer entitlement = entitlements.of(type);
+                    Integer remaining = entitlement == null ? null : Math.max(0, entitlement - used - pending);
+                    return new TypeBalance(type, entitlement, used, pending, remaining);
+                })
+                .toList();
+        return new LeaveBalanceSummary(employeeId, year, balances);
+    }
+
+    /**
+     * Recomputes every live employee's balances from their leave history, one employee per transaction, and
+     * corrects the rows that disagree. The employee's balance rows are locked before their history is read, so a
+     * leave change either lands before an employee is recomputed or is applied on top of the corrected totals.
+     *
+     * @return the number of balance rows corrected
+     */
+    @Override
+    @Scheduled(cron = "${app.leave-balance.rebuild-cron:0 30 2 * * *}")
+    public int rebuildLeaveBalances() {
+        int corrected = 0;
+        for (Long employeeId : employeeRepository.findAllIds()) {
+            corrected += transactionTemplate.execute(status ->
+                    leaveBalanceLedger.replace(employeeId, () -> history(employeeId)));
+        }
+        if (corrected > 0) {
+            log.warn("Leave balances drifted from the leave history; corrected {} balance rows", corrected);
+        }
+        return corrected;
+    }
+
+    // Fills the table on the first start after it was added, rather than waiting for the nightly rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (leaveBalanceRepository.count() == 0) {
+            rebuildLeaveBalances();
+        }
+    }
+
+    // Archived leave is closed, but approved days in it still count towards their year
+    private List<LeaveBalanceChange> history(Long employeeId) {
+        List<LeaveBalanceChange> history = new ArrayList<>(leaveRequestRepository.findBalanceHistory(employeeId, COUNTED));
+        history.addAll(archivedLeaveRequestRepository.findBalanceHistory(employeeId, COUNTED));
+        return history;
+    }
+}
@@ -1,52 +1,363 @@
 package com.flexisaf.FlexiSAF_wk7.service.impl;
 
+import com.flexisaf.FlexiSAF_wk7.balance.LeaveBalanceLedger;
+import com.flexisaf.FlexiSAF_wk7.config.MetricsConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewResult;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveBalanceChange;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveDashboard;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSearchCriteria;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSpan;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveStatusEvent;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveVersion;
+import com.flexisaf.FlexiSAF_wk7.dto.PendingLeave;
+import com.flexisaf.FlexiSAF_wk7.dto.TeamAvailability;
 import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions;
+import com.flexisaf.FlexiSAF_wk7.etag.CollectionVersions.Collection;
+import com.flexisaf.FlexiSAF_wk7.exception.LeaveConflictException;
 import com.flexisaf.FlexiSAF_wk7.exception.ResourceNotFoundException;
+import com.flexisaf.FlexiSAF_wk7.index.DepartmentAvailabilityIndex;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveIntervalIndex;
+import com.flexisaf.FlexiSAF_wk7.outbox.LeaveEventOutbox;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
+import com.flexisaf.FlexiSAF_wk7.pagination.Cursors;
+import com.flexisaf.FlexiSAF_wk7.repository.ArchivedLeaveRequestRepository;
 import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestSpecifications;
+import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
 import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class LeaveRequestServiceImpl implements LeaveRequestService {
 
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    private static final int MAX_AVAILABILITY_RANGE_DAYS = 366;
+    private static final Set<LeaveRequest.LeaveStatus> REVIEW_OUTCOMES =
+            EnumSet.of(LeaveRequest.LeaveStatus.APPROVED, LeaveRequest.LeaveStatus.REJECTED);
+    private static final Set<LeaveRequest.LeaveStatus> CLOSED_STATUSES =
+            EnumSet.of(LeaveRequest.LeaveStatus.CANCELLED, LeaveRequest.LeaveStatus.REJECTED);
+
     private final LeaveRequestRepository leaveRequestRepository;
+    private final ArchivedLeaveRequestRepository archivedLeaveRequestRepository;
+    private final LeaveIntervalIndex leaveIntervalIndex;
+    private final DepartmentAvailabilityIndex departmentAvailabilityIndex;
+    private final LeaveCounters leaveCounters;
+    private final CollectionVersions collectionVersions;
+    private final EmployeeService employeeService;
+    private final EntityManager entityManager;
+    private final LeaveEventOutbox leaveEventOutbox;
+    private final LeaveBalanceLedger leaveBalanceLedger;
+    private final TransactionTemplate transactionTemplate;
 
-    public LeaveRequestServiceImpl(LeaveRequestRepository leaveRequestRepository) {
+    public LeaveRequestServiceImpl(LeaveRequestRepository leaveRequestRepository,
+                                   ArchivedLeaveRequestRepository archivedLeaveRequestRepository, LeaveIntervalIndex leaveIntervalIndex,
+                                   DepartmentAvailabilityIndex departmentAvailabilityIndex, LeaveCounters leaveCounters,
+                                   CollectionVersions collectionVersions, EmployeeService employeeService, EntityManager entityManager,
+                                   LeaveEventOutbox leaveEventOutbox, LeaveBalanceLedger leaveBalanceLedger,
+                                   PlatformTransactionManager transactionManager) {
         this.leaveRequestRepository = leaveRequestRepository;
+        this.archivedLeaveRequestRepository = archivedLeaveRequestRepository;
+        this.leaveIntervalIndex = leaveIntervalIndex;
+        this.departmentAvailabilityIndex = departmentAvailabilityIndex;
+        this.leaveCounters = leaveCounters;
+        this.collectionVersions = collectionVersions;
+        this.employeeService = employeeService;
+        this.entityManager = entityManager;
+        this.leaveEventOutbox = leaveEventOutbox;
+        this.leaveBalanceLedger = leaveBalanceLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public LeaveRequest applyLeaveRequest(LeaveRequest leaveRequest) {
-        leaveRequest.setStatus(LeaveRequest.LeaveStatus.PENDING);
-        leaveRequest.setDateApplied(LocalDate.now());
-        return leaveRequestRepository.save(leaveRequest);
+        if (leaveRequest.getEndDate().isBefore(leaveRequest.getStartDate())) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        Long employeeId = leaveRequest.getEmployee().getId();
+        return leaveIntervalIndex.locked(employeeId, () -> {
+            leaveIntervalIndex.findOverlap(employeeId, leaveRequest.getStartDate(), leaveRequest.getEndDate())
+                    .ifPresent(overlappingId -> {
+                        throw new LeaveConflictException("Leave overlaps existing leave request " + overlappingId);
+                    });
+            leaveRequest.setStatus(LeaveRequest.LeaveStatus.PENDING);
+            leaveRequest.setDateApplied(LocalDate.now());
+            LeaveRequest savedLeaveRequest = saveWithEvent(leaveRequest, null);
+            syncIndexes(savedLeaveRequest, null);
+            return savedLeaveRequest;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LeaveRequestView getLeaveRequest(Long id, boolean includeArchived){
+        return leaveRequestRepository.findViewById(id)
+                .or(() -> includeArchived ? archivedLeaveRequestRepository.findViewById(id) : Optional.empty())
+                .orElseThrow(() -> new ResourceNotFoundException("Leave request not found with id: " +id));
     }
 
     @Override
-    public LeaveRequest getLeaveRequest(Long id){
-        return leaveRequestRepository.findById(id)
+    @Transactional(readOnly = true)
+    public LeaveVersion getLeaveVersion(Long id, boolean includeArchived) {
+        return leaveRequestRepository.findVersionById(id)
+                .or(() -> includeArchived ? archivedLeaveRequestRepository.findVersionById(id) : Optional.empty())
                 .orElseThrow(() -> new ResourceNotFoundException("Leave request not found with id: " +id));
     }
 
     @Override
-    public List<LeaveRequest> getAllLeaveRequests(){
-        return leaveRequestRepository.findAll();
+    public String getCollectionVersion() {
+        return collectionVersions.current(Collection.LEAVES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LeaveRequestView> getAllLeaveRequests(){
+        return leaveRequestRepository.findAllViews();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<LeaveRequestView> getLeaveRequests(String after, int limit, boolean includeArchived) {
+        long afterId = Cursors.decode(after);
+        Limit fetchLimit = Cursors.fetchLimit(limit);
+        List<LeaveRequestView> rows = leaveRequestRepository.findViewsAfter(afterId, fetchLimit);
+        if (includeArchived) {
+            rows = mergeById(rows, archivedLeaveRequestRepository.findViewsAfter(afterId, fetchLimit), fetchLimit);
+        }
+        return Cursors.page(rows, limit, LeaveRequestView::id);
     }
 
     @Override
-    public List<LeaveRequest> getLeaveRequestsByEmployee(Long employeeId){
-        return leaveRequestRepository.findByEmployeeId(employeeId);
+    @Transactional(readOnly = true)
+    public CursorPage<LeaveRequestView> searchLeaveRequests(LeaveSearchCriteria criteria, String after, int limit,
+                                                            boolean includeArchived) {
+        if (criteria.from() != null && criteria.to() != null && criteria.to().isBefore(criteria.from())) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        long afterId = Cursors.decode(after);
+        Limit fetchLimit = Cursors.fetchLimit(limit);
+        List<LeaveRequestView> rows = leaveRequestRepository.findViews(LeaveRequestSpecifications.matching(criteria),
+                afterId, fetchLimit);
+        if (includeArchived) {
+            rows = mergeById(rows, archivedLeaveRequestRepository.findViews(LeaveRequestSpecifications.matching(criteria),
+                    afterId, fetchLimit), fetchLimit);
+        }
+        return Cursors.page(rows, limit, LeaveRequestView::id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LeaveRequestView> getLeaveRequestsByEmployee(Long employeeId, boolean includeArchived){
+        List<LeaveRequestView> rows = leaveRequestRepository.findViewsByEmployeeId(employeeId);
+        if (includeArchived) {
+            rows = mergeById(rows, archivedLeaveRequestRepository.findViewsByEmployeeId(employeeId), Limit.unlimited());
+        }
+        return rows;
     }
 
     @Override
     public LeaveRequest reviewLeaveRequest(Long id, LeaveRequest updatedLeaveRequest) {
-        LeaveRequest leaveRequest = getLeaveRequest(id);
-        leaveRequest.setStatus(updatedLeaveRequest.getStatus());
-        leaveRequest.setManagerComment(updatedLeaveRequest.getManagerComment());
-        leaveRequest.setDateReviewed(LocalDate.now());
-        return leaveRequestRepository.save(leaveRequest);
+        return transition(id, leaveRequest -> {
+            leaveRequest.setStatus(updatedLeaveRequest.getStatus());
+            leaveRequest.setManagerComment(updatedLeaveRequest.getManagerComment());
+            leaveRequest.setDateReviewed(LocalDate.now());
+        });
+    }
+
+    @Override
+    public LeaveRequest cancelLeaveRequest(Long id) {
+        return transition(id, leaveRequest -> {
+            leaveRequest.setStatus(LeaveRequest.LeaveStatus.CANCELLED);
+            leaveRequest.setDateReviewed(LocalDate.now());
+        });
+    }
+
+    @Override
+    public BulkReviewResult reviewLeaveRequests(BulkReviewRequest request) {
+        if (!REVIEW_OUTCOMES.contains(request.status())) {
+            throw new IllegalArgumentException("Bulk review status must be APPROVED or REJECTED");
+        }
+        Set<Long> requestedIds = new LinkedHashSet<>(request.ids());
+        LocalDate today = LocalDate.now();
+
+        // The employees' locks cover the commit and the index updates, so a cancel of one of the leaves cannot slip
+        // in between and have its interval and availability put back by the stale status below
+        List<Long> employeeIds = leaveRequestRepository.findEmployeeIdsByIdIn(requestedIds);
+        List<PendingLeave> reviewed = leaveIntervalIndex.lockedAll(employeeIds, () -> {
+            // Lock the rows that are still PENDING, then flip them all with one UPDATE in the same transaction
+            List<PendingLeave> changed = transactionTemplate.execute(status -> {
+                List<PendingLeave> pending = leaveRequestRepository.lockPendingByIdIn(requestedIds);
+                if (!pending.isEmpty()) {
+                    leaveRequestRepository.updateReview(pending.stream().map(PendingLeave::id).toList(),
+                            request.status(), request.managerComment(), today);
+                    Instant now = Instant.now();
+                    leaveEventOutbox.appendAll(pending.stream()
+                            .map(leave -> new LeaveStatusEvent(leave.id(), leave.employeeId(), leave.leaveType(),
+                                    leave.startDate(), leave.endDate(), LeaveRequest.LeaveStatus.PENDING,
+                                    request.status(), request.managerComment(), now))
+                            .toList());
+                    leaveBalanceLedger.record(pending.stream()
+                            .map(leave -> new LeaveBalanceChange(leave.employeeId(), leave.leaveType(), leave.startDate(),
+                                    leave.endDate(), LeaveRequest.LeaveStatus.PENDING, request.status()))
+                            .toList());
+                    pending.forEach(leave -> leaveCounters.record(leave.employeeId(), leave.department(),
+                            leave.leaveType(), LeaveRequest.LeaveStatus.PENDING, request.status()));
+                }
+                return pending;
+            });
+
+            for (PendingLeave leave : changed) {
+                leaveIntervalIndex.syncIfLoaded(leave.employeeId(), leave.id(), leave.startDate(), leave.endDate(),
+                        request.status());
+                if (request.status() == LeaveRequest.LeaveStatus.APPROVED) {
+                    departmentAvailabilityIndex.add(
+                            new LeaveSpan(leave.employeeId(), leave.department(), leave.startDate(), leave.endDate()));
+                }
+            }
+            return changed;
+        });
+
+        if (!reviewed.isEmpty()) {
+            collectionVersions.bump(Collection.LEAVES);
+        }
+
+        List<Long> updatedIds = reviewed.stream().map(PendingLeave::id).sorted().toList();
+        Set<Long> updated = Set.copyOf(updatedIds);
+        List<Long> skippedIds = requestedIds.stream().filter(id -> !updated.contains(id)).toList();
+        return new BulkReviewResult(requestedIds.size(), updatedIds.size(), updatedIds, skippedIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLeaveRequests(Consumer<LeaveRequest> sink) {
+        long exported = 0;
+        try (Stream<LeaveRequest> leaveRequests = leaveRequestRepository.streamAllWithEmployee()) {
+            Iterator<LeaveRequest> iterator = leaveRequests.iterator();
+            while (iterator.hasNext()) {
+                LeaveRequest leaveRequest = iterator.next();
+                sink.accept(leaveRequest);
+                entityManager.detach(leaveRequest);
+                // Employees are shared between rows, so drop them in bulk rather than one by one
+                if (++exported % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return exported;
+    }
+
+    @Override
+    public TeamAvailability getTeamAvailability(String department, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_RANGE_DAYS) {
+            throw new IllegalArgumentException("Availability range must not exceed " + MAX_AVAILABILITY_RANGE_DAYS + " days");
+        }
+        List<Long> employeeIds = departmentAvailabilityIndex.employeesOnLeave(department, from, to).stream()
+                .mapToObj(Long::valueOf)
+                .toList();
+        return new TeamAvailability(department, from, to, employeeIds);
+    }
+
+    @Override
+    public LeaveDashboard getDashboard() {
+        return leaveCounters.snapshot();
+    }
+
+    // Ids are unique across the live table and the archive, so two id-ordered pages merge into one
+    private static List<LeaveRequestView> mergeById(List<LeaveRequestView> live, List<LeaveRequestView> archived,
+                                                    Limit limit) {
+        Stream<LeaveRequestView> merged = Stream.concat(live.stream(), archived.stream())
+                .sorted(Comparator.comparing(LeaveRequestView::id));
+        return (limit.isLimited() ? merged.limit(limit.max()) : merged).toList();
+    }
+
+    // The outbox row and the balance commit with the leave change, before the caller releases the employee's lock,
+    // and the dashboard counters take the change as it commits.
+    // Only a new request is checked against the entitlement; later changes just move or release its days.
+    private LeaveRequest saveWithEvent(LeaveRequest leaveRequest, LeaveRequest.LeaveStatus previousStatus) {
+        return transactionTemplate.execute(status -> {
+            Long employeeId = leaveRequest.getEmployee().getId();
+            if (previousStatus == null) {
+                leaveBalanceLedger.reserve(employeeId, leaveRequest.getLeaveType(), leaveRequest.getStartDate(),
+                        leaveRequest.getEndDate());
+            } else {
+                leaveBalanceLedger.record(List.of(new LeaveBalanceChange(employeeId, leaveRequest.getLeaveType(),
+                        leaveRequest.getStartDate(), leaveRequest.getEndDate(), previousStatus, leaveRequest.getStatus())));
+            }
+            LeaveRequest savedLeaveRequest = leaveRequestRepository.save(leaveRequest);
+            leaveEventOutbox.append(LeaveStatusEvent.of(savedLeaveRequest, previousStatus));
+            leaveCounters.record(employeeId, employeeService.getEmployeeSummary(employeeId).department(),
+                    savedLeaveRequest.getLeaveType(), previousStatus, savedLeaveRequest.getStatus());
+            return savedLeaveRequest;
+        });
+    }
+
+    private void syncIndexes(LeaveRequest leaveRequest, LeaveRequest.LeaveStatus previousStatus) {
+        Long employeeId = leaveRequest.getEmployee().getId();
+        leaveIntervalIndex.sync(employeeId, leaveRequest.getId(),
+                leaveRequest.getStartDate(), leaveRequest.getEndDate(), leaveRequest.getStatus());
+
+        collectionVersions.bump(Collection.LEAVES);
+
+        boolean wasApproved = previousStatus == LeaveRequest.LeaveStatus.APPROVED;
+        boolean isApproved = leaveRequest.getStatus() == LeaveRequest.LeaveStatus.APPROVED;
+        if (wasApproved != isApproved) {
+            String department = employeeService.getEmployeeSummary(employeeId).department();
+            LeaveSpan span = new LeaveSpan(employeeId, department, leaveRequest.getStartDate(), leaveRequest.getEndDate());
+            if (isApproved) {
+                departmentAvailabilityIndex.add(span);
+            } else {
+                departmentAvailabilityIndex.remove(span);
+            }
+        }
+    }
+
+    // The row is locked and read under the employee's lock and inside the transaction that changes it, so two
+    // changes to the same request see each other rather than both starting from the state it had before either
+    private LeaveRequest transition(Long id, Consumer<LeaveRequest> change) {
+        Long employeeId = leaveRequestRepository.findEmployeeIdById(id).orElseThrow(() -> notFound(id));
+        return leaveIntervalIndex.locked(employeeId, () -> {
+            LeaveRequest.LeaveStatus[] previousStatus = new LeaveRequest.LeaveStatus[1];
+            LeaveRequest savedLeaveRequest = transactionTemplate.execute(status -> {
+                LeaveRequest leaveRequest = leaveRequestRepository.lockById(id).orElseThrow(() -> notFound(id));
+                previousStatus[0] = leaveRequest.getStatus();
+                if (CLOSED_STATUSES.contains(previousStatus[0])) {
+                    throw new IllegalArgumentException("Leave request " + id + " is already " + previousStatus[0]);
+                }
+                change.accept(leaveRequest);
+                return saveWithEvent(leaveRequest, previousStatus[0]);
+            });
+            syncIndexes(savedLeaveRequest, previousStatus[0]);
+            return savedLeaveRequest;
+        });
+    }
+
+    private static ResourceNotFoundException notFound(Long id) {
+        return new ResourceNotFoundException("Leave request not found with id: " + id);
     }
 }
@@ -0,0 +1,125 @@
+package com.flexisaf.FlexiSAF_wk7.util;
+
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads employees from CSV with a header row. Columns are matched by name (case-insensitive) against the
+ * Employee properties, so they can appear in any order and optional ones can be left out.
+ */
+public final class EmployeeCsvParser {
+
+    private EmployeeCsvParser() {
+    }
+
+    public static List<Employee> parse(String csv) {
+        List<List<String>> records = readRecords(csv);
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = records.get(0);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        List<Employee> employees = new ArrayList<>(records.size() - 1);
+        for (int r = 1; r < records.size(); r++) {
+            List<String> record = records.get(r);
+            try {
+                employees.add(toEmployee(record, columns));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid CSV row " + r + ": " + ex.getMessage());
+            }
+        }
+        return employees;
+    }
+
+    private static Employee toEmployee(List<String> record, Map<String, Integer> columns) {
+        Employee employee = new Employee();
+        employee.setFirstName(value(record, columns, "firstname"));
+        employee.setLastName(value(record, columns, "lastname"));
+        employee.setEmail(value(record, columns, "email"));
+        employee.setPhoneNumber(value(record, columns, "phonenumber"));
+        employee.setDepartment(value(record, columns, "department"));
+        employee.setPosition(value(record, columns, "position"));
+        employee.setAddress(value(record, columns, "address"));
+
+        String salary = value(record, columns, "salary");
+        if (salary != null) {
+            employee.setSalary(Double.parseDouble(salary));
+        }
+        String dateofHire = value(record, columns, "dateofhire");
+        if (dateofHire != null) {
+            employee.setDateofHire(LocalDate.parse(dateofHire));
+        }
+        String status = value(record, columns, "status");
+        if (status != null) {
+            employee.setStatus(Employee.EmploymentStatus.valueOf(status.toUpperCase(Locale.ROOT)));
+        }
+        String active = value(record, columns, "active");
+        employee.setActive(active == null || Boolean.parseBoolean(active));
+        return employee;
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+    private static List<List<String>> readRecords(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                endRecord(records, record, field);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        endRecord(records, record, field);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field) {
+        record.add(field.toString());
+        field.setLength(0);
+        boolean blank = record.size() == 1 && record.get(0).isBlank();
+        if (!blank) {
+            records.add(record);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+create sequence employees_seq start with 1 increment by 50;
+
+create table employees (
+    id bigint not null,
+    version bigint default 0 not null,
+    first_name varchar(50) not null,
+    last_name varchar(50) not null,
+    email varchar(255) not null unique,
+    phone_number varchar(20),
+    department varchar(255),
+    position varchar(255),
+    salary float(53) not null,
+    dateof_hire date,
+    status enum ('FULL_TIME', 'PART_TIME', 'CONTRACT'),
+    active boolean not null,
+    address clob,
+    primary key (id)
+);
+
+create table leave_requests (
+    id bigint generated by default as identity,
+    version bigint default 0 not null,
+    employee_id bigint not null,
+    start_date date not null,
+    end_date date not null,
+    leave_type enum ('CASUAL', 'SICK', 'MATERNITY', 'ANNUAL', 'STUDY') not null,
+    status enum ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED'),
+    reason varchar(500),
+    manager_comment varchar(500),
+    date_applied date,
+    date_reviewed date,
+    primary key (id)
+);
+
+alter table leave_requests
+    add constraint FKrxff2xg1kffbjfh5maxwoqyhw
+    foreign key (employee_id)
+    references employees;
@@ -0,0 +1,5 @@
+-- Leave search filters by employee or by status and then by date; the date range narrows within each prefix
+create index idx_leave_requests_employee_start on leave_requests (employee_id, start_date);
+create index idx_leave_requests_status_start on leave_requests (status, start_date);
+
+create index idx_employees_department on employees (department);
@@ -0,0 +1,2 @@
+-- Set when an employee is offboarded; the row and its leave history stay, but reads no longer see them
+alter table employees add column deleted_at timestamp(6) with time zone;
@@ -0,0 +1,13 @@
+-- Databases created by ddl-auto=update before the migrations were baselined at V1 without being changed: they
+-- have an identity employees.id, no employees_seq and no version columns. Bring them to the V1 schema; on a
+-- database that started at V1 every statement is a no-op apart from skipping one block of the sequence.
+alter table employees add column if not exists version bigint default 0 not null;
+alter table leave_requests add column if not exists version bigint default 0 not null;
+
+create sequence if not exists employees_seq start with 1 increment by 50;
+alter table employees alter column id drop identity;
+
+-- Hibernate hands out the 50 ids ending at each value it draws, so the next one must clear the existing ids by a
+-- whole block, and must not fall behind a block another instance already drew
+alter sequence employees_seq restart with
+        (select greatest(coalesce(max(id), 0) + 50, next value for employees_seq) from employees);
@@ -0,0 +1,39 @@
+-- Schema as Hibernate created it before migrations took over; existing databases are baselined past this
+create sequence employees_seq start with 1 increment by 50;
+
+create table employees (
+    id bigint not null,
+    version bigint default 0 not null,
+    first_name varchar(50) not null,
+    last_name varchar(50) not null,
+    email varchar(255) not null unique,
+    phone_number varchar(20),
+    department varchar(255),
+    position varchar(255),
+    salary float(53) not null,
+    dateof_hire date,
+    status varchar(255) check (status in ('FULL_TIME', 'PART_TIME', 'CONTRACT')),
+    active boolean not null,
+    address oid,
+    primary key (id)
+);
+
+create table leave_requests (
+    id bigint generated by default as identity,
+    version bigint default 0 not null,
+    employee_id bigint not null,
+    start_date date not null,
+    end_date date not null,
+    leave_type varchar(255) not null check (leave_type in ('CASUAL', 'SICK', 'MATERNITY', 'ANNUAL', 'STUDY')),
+    status varchar(255) check (status in ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED')),
+    reason varchar(500),
+    manager_comment varchar(500),
+    date_applied date,
+    date_reviewed date,
+    primary key (id)
+);
+
+alter table if exists leave_requests
+    add constraint FKrxff2xg1kffbjfh5maxwoqyhw
+    foreign key (employee_id)
+    references employees;
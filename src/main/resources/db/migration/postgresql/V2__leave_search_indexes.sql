@@ -0,0 +1,6 @@
+-- Leave search filters by employee or by status and then by date; the date range narrows within each prefix.
+-- The employee index also covers the foreign key, which had no index of its own
+create index idx_leave_requests_employee_start on leave_requests (employee_id, start_date);
+create index idx_leave_requests_status_start on leave_requests (status, start_date);
+
+create index idx_employees_department on employees (department);
@@ -0,0 +1,11 @@
+-- Leave status events waiting for the outbox dispatcher; rows are deleted once delivered
+create sequence outbox_events_seq start with 1 increment by 50;
+
+create table outbox_events (
+    id bigint not null,
+    event_type varchar(255) not null check (event_type in ('LEAVE_APPLIED', 'LEAVE_APPROVED', 'LEAVE_REJECTED', 'LEAVE_CANCELLED')),
+    aggregate_id bigint not null,
+    payload varchar(2000) not null,
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
@@ -0,0 +1,26 @@
+-- Closed leave requests moved out of leave_requests by the archiver. Rows keep their original id, so ids stay
+-- unique across both tables, and go with their employee like the live rows do
+create table leave_requests_archive (
+    id bigint not null,
+    version bigint not null,
+    employee_id bigint not null,
+    start_date date not null,
+    end_date date not null,
+    leave_type varchar(255) not null check (leave_type in ('CASUAL', 'SICK', 'MATERNITY', 'ANNUAL', 'STUDY')),
+    status varchar(255) not null check (status in ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED')),
+    reason varchar(500),
+    manager_comment varchar(500),
+    date_applied date,
+    date_reviewed date,
+    archived_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+alter table if exists leave_requests_archive
+    add constraint fk_leave_requests_archive_employee
+    foreign key (employee_id)
+    references employees
+    on delete cascade;
+
+create index idx_leave_requests_archive_employee_start on leave_requests_archive (employee_id, start_date);
+create index idx_leave_requests_archive_status_start on leave_requests_archive (status, start_date);
@@ -0,0 +1,16 @@
+-- Running totals behind leave balances: days held by pending and approved leave per employee, year and type.
+-- Kept up to date with every leave change and recomputed from the leave history by the rebuild job
+create table leave_balances (
+    employee_id bigint not null,
+    leave_year integer not null,
+    leave_type varchar(255) not null check (leave_type in ('CASUAL', 'SICK', 'MATERNITY', 'ANNUAL', 'STUDY')),
+    pending_days integer not null,
+    used_days integer not null,
+    primary key (employee_id, leave_year, leave_type)
+);
+
+alter table if exists leave_balances
+    add constraint fk_leave_balances_employee
+    foreign key (employee_id)
+    references employees
+    on delete cascade;
@@ -0,0 +1,139 @@
+package com.flexisaf.FlexiSAF_wk7.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.pagination.CursorPage;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Walks the whole employee listing page by page and serializes each page, the way {@code GET /api/employees}
+ * does, once with the address loaded alongside every employee (the old behaviour) and once through the list
+ * projection. Excluded from the normal build; run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class EmployeeListBenchmarkTest {
+
+    private static final int EMPLOYEES = 2_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        employeeRepository.deleteAll();
+        String address = "12 Allen Avenue, Ikeja, Lagos, Nigeria. ".repeat(50);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = new Employee();
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setEmail("bench" + i + "@flexisaf.com");
+            employee.setPhoneNumber("080" + i);
+            employee.setDepartment(i % 2 == 0 ? "IT" : "HR");
+            employee.setPosition("Engineer");
+            employee.setSalary(50000.0);
+            employee.setDateofHire(LocalDate.now());
+            employee.setAddress(address);
+            employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+            employee.setActive(true);
+            employees.add(employee);
+        }
+        employeeRepository.saveAll(employees);
+    }
+
+    @Test
+    public void benchmarkEmployeeListing() throws Exception {
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            walkWithAddress();
+            walkProjection();
+        }
+
+        long withAddress = measure(this::walkWithAddress);
+        long projection = measure(this::walkProjection);
+
+        System.out.printf("Employee listing, %d employees, pages of %d, %d rounds%n", EMPLOYEES, PAGE_SIZE, ROUNDS);
+        System.out.printf("  entities with address : %,d rows/s%n", withAddress);
+        System.out.printf("  list projection       : %,d rows/s%n", projection);
+    }
+
+    private long measure(Walk walk) throws Exception {
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            rows += walk.run();
+        }
+        assertEquals((long) EMPLOYEES * ROUNDS, rows);
+        return rows * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private int walkWithAddress() throws Exception {
+        EntityGraph<Employee> graph = entityManager.createEntityGraph(Employee.class);
+        graph.addAttributeNodes("address");
+        int rows = 0;
+        long after = 0;
+        while (true) {
+            List<Employee> page = entityManager
+                    .createQuery("select e from Employee e where e.id > :after order by e.id", Employee.class)
+                    .setParameter("after", after)
+                    .setHint("jakarta.persistence.fetchgraph", graph)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            if (page.isEmpty()) {
+                return rows;
+            }
+            objectMapper.writeValueAsBytes(page);
+            rows += page.size();
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private int walkProjection() throws Exception {
+        int rows = 0;
+        String after = null;
+        do {
+            CursorPage<EmployeeListItem> page = employeeService.getEmployees(after, PAGE_SIZE);
+            objectMapper.writeValueAsBytes(page.items());
+            rows += page.items().size();
+            after = page.nextCursor();
+        } while (after != null);
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface Walk {
+        int run() throws Exception;
+    }
+}
@@ -0,0 +1,104 @@
+package com.flexisaf.FlexiSAF_wk7.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.EmployeeListItem;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveRequestView;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Payload size and encode/decode time of 10,000-row employee and leave listings in JSON, CBOR and Smile, using
+ * the mappers the API itself uses. Excluded from the normal build; run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class PayloadFormatBenchmarkTest {
+
+    private static final int ROWS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    public void benchmarkEmployeeListing() throws Exception {
+        List<EmployeeListItem> employees = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            employees.add(new EmployeeListItem((long) i, 3, "First" + i, "Last" + i, "employee" + i + "@flexisaf.com",
+                    "0803" + i, i % 2 == 0 ? "Engineering" : "Human Resources", "Software Engineer", 75000.0 + i,
+                    LocalDate.of(2020, 1, 1).plusDays(i % 1500), Employee.EmploymentStatus.FULL_TIME, true));
+        }
+        run("Employee listing", employees, new TypeReference<List<EmployeeListItem>>() { });
+    }
+
+    @Test
+    public void benchmarkLeaveListing() throws Exception {
+        List<LeaveRequestView> leaves = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate start = LocalDate.of(2025, 1, 1).plusDays(i % 365);
+            leaves.add(new LeaveRequestView((long) i, (long) i % 2000, "First" + i, "Last" + i,
+                    "employee" + i + "@flexisaf.com", "Engineering", start, start.plusDays(5),
+                    LeaveRequest.LeaveType.ANNUAL, LeaveRequest.LeaveStatus.APPROVED, "Family vacation",
+                    "Approved, enjoy", start.minusDays(14), start.minusDays(10), 2L, 3L));
+        }
+        run("Leave listing", leaves, new TypeReference<List<LeaveRequestView>>() { });
+    }
+
+    private <T> void run(String name, List<T> rows, TypeReference<List<T>> type) throws Exception {
+        Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+        formats.put("JSON", objectMapper);
+        formats.put("CBOR", cborConverter.getObjectMapper());
+        formats.put("Smile", smileConverter.getObjectMapper());
+
+        System.out.printf("%s, %,d rows, mean of %d iterations%n", name, ROWS, ITERATIONS);
+        System.out.printf("  %-6s %12s %12s %12s%n", "format", "bytes", "encode ms", "decode ms");
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            byte[] payload = mapper.writeValueAsBytes(rows);
+            assertEquals(rows, mapper.readValue(payload, type));
+
+            for (int i = 0; i < WARMUP; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(rows), type);
+            }
+            long encode = 0;
+            long decode = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                byte[] bytes = mapper.writeValueAsBytes(rows);
+                long encoded = System.nanoTime();
+                mapper.readValue(bytes, type);
+                encode += encoded - start;
+                decode += System.nanoTime() - encoded;
+            }
+            System.out.printf("  %-6s %,12d %12.2f %12.2f%n", format.getKey(), payload.length,
+                    encode / 1e6 / ITERATIONS, decode / 1e6 / ITERATIONS);
+        }
+    }
+}
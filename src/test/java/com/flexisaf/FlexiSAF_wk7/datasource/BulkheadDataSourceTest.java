@@ -0,0 +1,89 @@
+package com.flexisaf.FlexiSAF_wk7.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadDataSourceTest {
+
+    private JdbcDataSource h2;
+    private BulkheadDataSource bulkhead;
+
+    @BeforeEach
+    public void setUp() {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1");
+        bulkhead = new BulkheadDataSource(h2, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void testGetConnection_WhenAllPermitsTaken_ShouldFailFast() throws Exception {
+        try (Connection first = bulkhead.getConnection(); Connection second = bulkhead.getConnection()) {
+            assertEquals(0, bulkhead.getAvailablePermits());
+            assertThrows(SQLTransientConnectionException.class, () -> bulkhead.getConnection());
+        }
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    public void testQueueLength_ShouldCountCallersWaitingForAPermit() throws Exception {
+        BulkheadDataSource single = new BulkheadDataSource(h2, 1, Duration.ofSeconds(5));
+        Thread waiter;
+        try (Connection held = single.getConnection()) {
+            waiter = Thread.ofVirtual().start(() -> {
+                try (Connection connection = single.getConnection()) {
+                    connection.isValid(1);
+                } catch (SQLException ignored) {
+                    // Only the wait matters here
+                }
+            });
+            long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+            while (single.getQueueLength() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, single.getQueueLength());
+        }
+        waiter.join();
+        assertEquals(0, single.getQueueLength());
+    }
+
+    @Test
+    public void testClose_CalledTwice_ShouldReleaseOnePermit() throws Exception {
+        Connection connection = bulkhead.getConnection();
+        connection.close();
+        connection.close();
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    public void testVirtualThreads_ShouldNeverHoldMoreConnectionsThanPermits() throws Exception {
+        int[] maxInUse = {0};
+        Thread[] threads = new Thread[50];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofVirtual().start(() -> {
+                try (Connection connection = bulkhead.getConnection()) {
+                    synchronized (maxInUse) {
+                        maxInUse[0] = Math.max(maxInUse[0], 2 - bulkhead.getAvailablePermits());
+                    }
+                    connection.createStatement().execute("select 1");
+                } catch (Exception ignored) {
+                    // Callers that time out are expected under this much contention
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2, bulkhead.getAvailablePermits());
+        assertTrue(maxInUse[0] <= 2);
+    }
+}
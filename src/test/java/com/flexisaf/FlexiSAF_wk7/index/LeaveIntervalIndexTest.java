@@ -0,0 +1,58 @@
+package com.flexisaf.FlexiSAF_wk7.index;
+
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LeaveIntervalIndexTest {
+
+    @Test
+    public void testEvict_WhileTheLockIsHeld_ShouldNotLetAnotherCallerIn() throws Exception {
+        LeaveRequestRepository repository = mock(LeaveRequestRepository.class);
+        when(repository.findIntervalsByEmployeeIdAndStatusIn(anyLong(), any())).thenReturn(List.of());
+        LeaveIntervalIndex index = new LeaveIntervalIndex(repository);
+
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable hold = () -> index.locked(1L, () -> {
+            maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            holders.decrementAndGet();
+            return null;
+        });
+
+        Thread first = new Thread(hold);
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Thread evictor = new Thread(() -> index.evict(1L));
+        evictor.start();
+        Thread second = new Thread(hold);
+        second.start();
+        Thread.sleep(200);
+        release.countDown();
+        for (Thread thread : List.of(first, evictor, second)) {
+            thread.join(5000);
+        }
+
+        assertEquals(1, maxHolders.get());
+        assertEquals(0, holders.get());
+    }
+}
@@ -1,10 +1,15 @@
 
 package com.flexisaf.FlexiSAF_wk7.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.index.EmployeeSearchIndex;
 import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,10 +18,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -37,12 +47,22 @@ public class EmployeeControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Employee testEmployee;
 
     @BeforeEach
     public void setUp() {
         // Clean up database before each test
         employeeRepository.deleteAll();
+        employeeSearchIndex.rebuild();
 
         // Create test data
         testEmployee = new Employee();
@@ -101,6 +121,20 @@ public class EmployeeControllerIntegrationTest {
                 .andExpect(jsonPath("$.department", is("IT")));
     }
 
+    @Test
+    public void testGetEmployeeById_ShouldReadInAReadOnlyTransactionWithoutFlushing() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(1, statistics.getSuccessfulTransactionCount());
+        // A read-write transaction would flush, dirty-checking the loaded employee, on commit
+        assertEquals(0, statistics.getFlushCount());
+    }
+
     @Test
     public void testGetEmployeeById_WhenEmployeeDoesNotExist_ShouldReturn404() throws Exception {
         mockMvc.perform(get("/api/employees/{id}", 999L)
@@ -249,4 +283,337 @@ public class EmployeeControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAllEmployees_WithLimit_ShouldReturnPagesLinkedByCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Employee employee = new Employee();
+            employee.setFirstName("Employee" + i);
+            employee.setLastName("Paged");
+            employee.setEmail("employee" + i + "@flexisaf.com");
+            employeeRepository.save(employee);
+        }
+
+        String nextCursor = mockMvc.perform(get("/api/employees")
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].firstName", is("Employee0")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/employees")
+                        .param("limit", "2")
+                        .param("after", nextCursor)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName", is("Employee2")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testGetAllEmployees_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/employees")
+                        .param("after", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportEmployees_WithJsonArray_ShouldReportEachRow() throws Exception {
+        employeeRepository.save(testEmployee);
+
+        Employee newEmployee = new Employee();
+        newEmployee.setFirstName("Ada");
+        newEmployee.setLastName("Obi");
+        newEmployee.setEmail("ada.obi@flexisaf.com");
+
+        Employee duplicateEmployee = new Employee();
+        duplicateEmployee.setFirstName("Johnny");
+        duplicateEmployee.setLastName("Doe");
+        duplicateEmployee.setEmail("john.doe@flexisaf.com");
+
+        Employee invalidEmployee = new Employee();
+        invalidEmployee.setEmail("not-an-email");
+
+        String employeesJson = objectMapper.writeValueAsString(
+                List.of(newEmployee, duplicateEmployee, invalidEmployee));
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(employeesJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.rows[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.rows[0].id", notNullValue()))
+                .andExpect(jsonPath("$.rows[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.rows[2].status", is("INVALID")))
+                .andExpect(jsonPath("$.rows[2].error", containsString("firstName")));
+    }
+
+    @Test
+    public void testImportEmployees_WithCsv_ShouldCreateEmployees() throws Exception {
+        String csv = """
+                firstName,lastName,email,department,salary,dateofHire,status,address
+                Ada,Obi,ada.obi@flexisaf.com,IT,50000,2024-02-01,FULL_TIME,"12 Allen Ave, Ikeja"
+                Bola,Ade,bola.ade@flexisaf.com,HR,45000,2024-03-01,CONTRACT,
+                Cee,Dee,bola.ade@flexisaf.com,HR,45000,2024-03-01,CONTRACT,
+                """;
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.rows[2].status", is("DUPLICATE")));
+
+        String body = mockMvc.perform(get("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getContentAsString();
+
+        // The listing leaves the address out; the detail view still has it
+        mockMvc.perform(get("/api/employees/{id}", objectMapper.readTree(body).get(0).get("id").asLong()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.address", is("12 Allen Ave, Ikeja")));
+    }
+
+    @Test
+    public void testSearchEmployees_ShouldRankNameMatchesFirstAndFollowChanges() throws Exception {
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testEmployee)))
+                .andExpect(status().isCreated());
+        String journalist = objectMapper.writeValueAsString(searchable("Ada", "Obi", "ada.obi@flexisaf.com",
+                "Communications", "Journalist"));
+        String adaId = objectMapper.readTree(mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(journalist))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        mockMvc.perform(get("/api/employees/search").param("q", "jo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].email", is("john.doe@flexisaf.com")))
+                .andExpect(jsonPath("$[1].email", is("ada.obi@flexisaf.com")));
+
+        mockMvc.perform(get("/api/employees/search").param("q", "Doe soft"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName", is("John")));
+
+        mockMvc.perform(put("/api/employees/{id}", adaId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(searchable("Ada", "Obi", "ada.obi@flexisaf.com",
+                                "Finance", "Analyst"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/employees/search").param("q", "jo"))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/employees/search").param("q", "fin"))
+                .andExpect(jsonPath("$[0].firstName", is("Ada")));
+
+        mockMvc.perform(delete("/api/employees/{id}", adaId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/employees/search").param("q", "ada"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void testSearchEmployees_ShouldIncludeBulkImportedRows() throws Exception {
+        List<Employee> employees = List.of(
+                searchable("Ngozi", "Eze", "ngozi.eze@flexisaf.com", "IT", "Engineer"),
+                searchable("Ngozi", "Okafor", "ngozi.okafor@flexisaf.com", "HR", "Recruiter"));
+
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employees)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/employees/search").param("q", "ngo").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].lastName", is("Eze")));
+    }
+
+    @Test
+    public void testSearchEmployees_WithBlankQuery_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/employees/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetEmployeeById_WithMatchingETag_ShouldReturnNotModifiedUntilUpdated() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+
+        String etag = mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        savedEmployee.setPosition("Staff Engineer");
+        mockMvc.perform(put("/api/employees/{id}", savedEmployee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(savedEmployee)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.position", is("Staff Engineer")));
+    }
+
+    @Test
+    public void testGetAllEmployees_WithMatchingETag_ShouldReturnNotModifiedUntilCollectionChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/employees").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testEmployee)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/employees").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void testGetEmployeeById_WithETagForMissingEmployee_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/employees/{id}", 999L).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testPatchEmployee_ShouldChangeOnlySuppliedFields() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"phoneNumber\": \"0987654321\", \"department\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", containsString("statements=2")))
+                .andExpect(jsonPath("$.phoneNumber", is("0987654321")))
+                .andExpect(jsonPath("$.department", nullValue()))
+                .andExpect(jsonPath("$.address", is("123 Main St, Lagos, Nigeria")))
+                .andExpect(jsonPath("$.dateofHire", is("2023-01-15")))
+                .andExpect(jsonPath("$.version", is(1)));
+    }
+
+    @Test
+    public void testPatchEmployee_WithNoEffectiveChange_ShouldSkipTheWrite() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"department\": \"IT\", \"version\": 7}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", containsString("statements=1")))
+                .andExpect(jsonPath("$.version", is(0)));
+    }
+
+    @Test
+    public void testPatchEmployee_WithInvalidValues_ShouldReturnBadRequest() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"email\": \"not-an-email\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("email")));
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"firstName\": null}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/api/employees/{id}", savedEmployee.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"id\": 12345}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(jsonPath("$.email", is("john.doe@flexisaf.com")))
+                .andExpect(jsonPath("$.version", is(0)));
+    }
+
+    @Test
+    public void testPatchEmployee_WhenNotFound_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(patch("/api/employees/{id}", 999L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"position\": \"Lead\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testEmployeeReads_ShouldOnlyReadTheAddressForTheDetailView() throws Exception {
+        Employee savedEmployee = employeeRepository.save(testEmployee);
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", containsString("statements=1")))
+                .andExpect(jsonPath("$[0].email", is("john.doe@flexisaf.com")))
+                .andExpect(jsonPath("$[0].phoneNumber", is("1234567890")))
+                .andExpect(jsonPath("$[0].address").doesNotExist());
+
+        mockMvc.perform(get("/api/employees/{id}", savedEmployee.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", containsString("statements=1")))
+                .andExpect(jsonPath("$.address", is("123 Main St, Lagos, Nigeria")));
+    }
+
+    @Test
+    public void testEmployeeEndpoints_WithCbor_ShouldReadAndWriteCbor() throws Exception {
+        ObjectMapper cbor = cborConverter.getObjectMapper();
+
+        byte[] created = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(testEmployee)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("john.doe@flexisaf.com", cbor.readTree(created).get("email").asText());
+
+        byte[] listed = mockMvc.perform(get("/api/employees").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode first = cbor.readTree(listed).get(0);
+        assertEquals("John", first.get("firstName").asText());
+        // Same date format as the JSON representation
+        assertEquals("2023-01-15", first.get("dateofHire").asText());
+        assertFalse(first.has("address"));
+    }
+
+    private Employee searchable(String firstName, String lastName, String email, String department, String position) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setEmail(email);
+        employee.setDepartment(department);
+        employee.setPosition(position);
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        return employee;
+    }
+}
@@ -0,0 +1,269 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.entity.OutboxEvent;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.OutboxEventRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class EmployeeOffboardingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LeaveCounters leaveCounters;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+    }
+
+    // Offboarded rows are invisible to the repositories, so they are removed with plain SQL
+    @AfterEach
+    public void cleanUp() {
+        outboxEventRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from leave_requests");
+        jdbcTemplate.update("delete from employees");
+        leaveCounters.rebuild();
+    }
+
+    @Test
+    public void testOffboard_ShouldSoftDeleteTheEmployeeAndCancelTheirOpenLeave() throws Exception {
+        Employee leaver = employee("Kemi", "Adeyemi", "Sales");
+        Employee stayer = employee("Musa", "Garba", "Sales");
+        LeaveRequest pending = leave(leaver, LeaveRequest.LeaveStatus.PENDING, LocalDate.now().plusDays(20));
+        LeaveRequest upcoming = leave(leaver, LeaveRequest.LeaveStatus.APPROVED, LocalDate.now().plusDays(40));
+        leave(leaver, LeaveRequest.LeaveStatus.APPROVED, LocalDate.now().minusDays(40));
+        LeaveRequest stayerLeave = leave(stayer, LeaveRequest.LeaveStatus.PENDING, LocalDate.now().plusDays(5));
+        leaveCounters.rebuild();
+
+        mockMvc.perform(post("/api/employees/{id}/offboard", leaver.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeIds", contains(leaver.getId().intValue())))
+                .andExpect(jsonPath("$.purged", is(false)))
+                .andExpect(jsonPath("$.leaveRequestsCancelled", is(2)))
+                .andExpect(jsonPath("$.leaveRequestsDeleted", is(0)));
+
+        // Gone from every read, employees and leave alike
+        mockMvc.perform(get("/api/employees/{id}", leaver.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(jsonPath("$[*].id", contains(stayer.getId().intValue())));
+        mockMvc.perform(get("/api/leaves"))
+                .andExpect(jsonPath("$[*].id", contains(stayerLeave.getId().intValue())));
+        mockMvc.perform(get("/api/leaves/employees/{id}", leaver.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(1)))
+                .andExpect(jsonPath("$.byDepartment.Sales.PENDING", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+
+        // ...but the rows stay, with their open leave cancelled
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from employees where id = ? and deleted_at is not null and active = false",
+                Integer.class, leaver.getId()));
+        assertEquals(List.of("APPROVED", "CANCELLED", "CANCELLED"), jdbcTemplate.queryForList(
+                "select status from leave_requests where employee_id = ? order by status", String.class,
+                leaver.getId()));
+        assertEquals(LeaveRequest.LeaveStatus.CANCELLED,
+                leaveRequestRepository.findById(pending.getId()).orElseThrow().getStatus());
+
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch(event -> event.getEventType() == OutboxEvent.EventType.LEAVE_CANCELLED));
+        assertEquals(List.of(pending.getId(), upcoming.getId()),
+                events.stream().map(OutboxEvent::getAggregateId).sorted().toList());
+
+        mockMvc.perform(post("/api/employees/{id}/offboard", leaver.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testOffboardDepartment_WithPurge_ShouldDeleteInAFixedNumberOfStatements() throws Exception {
+        Employee first = employee("Ada", "Obi", "Sales");
+        Employee second = employee("Tunde", "Bello", "Sales");
+        Employee other = employee("Ngozi", "Eze", "IT");
+        for (int i = 0; i < 25; i++) {
+            leave(i % 2 == 0 ? first : second, LeaveRequest.LeaveStatus.APPROVED, LocalDate.now().minusDays(10L * (i + 1)));
+        }
+        leave(other, LeaveRequest.LeaveStatus.PENDING, LocalDate.now().plusDays(3));
+        leaveCounters.rebuild();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(post("/api/employees/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("department", "Sales", "purge", true))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeIds", containsInAnyOrder(first.getId().intValue(), second.getId().intValue())))
+                .andExpect(jsonPath("$.purged", is(true)))
+                .andExpect(jsonPath("$.leaveRequestsDeleted", is(25)));
+
+        // Employee lookup, one leave delete, one employee delete: no per-row statements
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from employees where department = 'Sales'", Integer.class));
+        assertEquals(1, leaveRequestRepository.count());
+        assertTrue(employeeRepository.existsById(other.getId()));
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+    }
+
+    @Test
+    public void testOffboardByIds_ShouldSkipUnknownAndAlreadyOffboardedEmployees() throws Exception {
+        Employee first = employee("Ada", "Obi", "Sales");
+        Employee second = employee("Tunde", "Bello", "IT");
+        mockMvc.perform(post("/api/employees/{id}/offboard", second.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/employees/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "ids", List.of(first.getId(), second.getId(), 999_999L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeIds", contains(first.getId().intValue())));
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void testOffboardedEmployeesEmail_ShouldStillCountAsTaken() throws Exception {
+        Employee leaver = employee("Kemi", "Adeyemi", "Sales");
+        mockMvc.perform(post("/api/employees/{id}/offboard", leaver.getId()))
+                .andExpect(status().isOk());
+
+        String csv = """
+                firstName,lastName,email,department,salary,dateofHire,status,address
+                Kemi,Adeyemi,kemi.adeyemi@flexisaf.com,Sales,50000,2024-02-01,FULL_TIME,
+                Ada,Obi,ada.obi@flexisaf.com,IT,50000,2024-02-01,FULL_TIME,
+                """;
+        mockMvc.perform(post("/api/employees/bulk")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rows[0].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.rows[1].status", is("CREATED")));
+
+        Employee rehire = new Employee();
+        rehire.setFirstName("Kemi");
+        rehire.setLastName("Adeyemi");
+        rehire.setEmail("kemi.adeyemi@flexisaf.com");
+        rehire.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(rehire)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(jsonPath("$[*].email", contains("ada.obi@flexisaf.com")));
+    }
+
+    @Test
+    public void testOffboard_ShouldRequireEitherIdsOrADepartment() throws Exception {
+        mockMvc.perform(post("/api/employees/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/employees/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(1L), "department", "IT"))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testDeleteEmployee_ShouldNotLoadTheirLeaveHistory() throws Exception {
+        Employee employee = employee("Kemi", "Adeyemi", "Sales");
+        for (int i = 0; i < 10; i++) {
+            leave(employee, LeaveRequest.LeaveStatus.REJECTED, LocalDate.now().minusDays(10L * (i + 1)));
+        }
+
+        // The endpoint's query budget fails the request if this turns into per-row deletes again
+        mockMvc.perform(delete("/api/employees/{id}", employee.getId()))
+                .andExpect(status().isNoContent());
+
+        assertEquals(0, leaveRequestRepository.count());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from employees", Integer.class));
+    }
+
+    private Employee employee(String firstName, String lastName, String department) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setEmail(firstName.toLowerCase() + "." + lastName.toLowerCase() + "@flexisaf.com");
+        employee.setDepartment(department);
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        return employeeRepository.save(employee);
+    }
+
+    private LeaveRequest leave(Employee employee, LeaveRequest.LeaveStatus status, LocalDate startDate) {
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employee);
+        leave.setStartDate(startDate);
+        leave.setEndDate(startDate.plusDays(2));
+        leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        leave.setStatus(status);
+        return leaveRequestRepository.save(leave);
+    }
+}
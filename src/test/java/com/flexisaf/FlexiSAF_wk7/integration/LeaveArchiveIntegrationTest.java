@@ -0,0 +1,242 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.flexisaf.FlexiSAF_wk7.archive.LeaveArchiver;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.entity.ArchivedLeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.index.DepartmentAvailabilityIndex;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.repository.ArchivedLeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.leave-archive.horizon=30d",
+        "app.leave-archive.chunk-size=2",
+        "app.leave-archive.max-chunks=2",
+        "app.leave-archive.pause=0ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class LeaveArchiveIntegrationTest {
+
+    // Stands in for requests queueing on the connection pool
+    private static final AtomicInteger PENDING_CONNECTIONS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private ArchivedLeaveRequestRepository archivedLeaveRequestRepository;
+
+    @Autowired
+    private LeaveArchiver leaveArchiver;
+
+    @Autowired
+    private LeaveCounters leaveCounters;
+
+    @Autowired
+    private DepartmentAvailabilityIndex departmentAvailabilityIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setUp() {
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+        PENDING_CONNECTIONS.set(0);
+        Gauge.builder("hikaricp.connections.pending", PENDING_CONNECTIONS, AtomicInteger::get)
+                .tag("pool", "archive-test")
+                .register(meterRegistry);
+
+        employee = new Employee();
+        employee.setFirstName("Amaka");
+        employee.setLastName("Okafor");
+        employee.setEmail("amaka.okafor@flexisaf.com");
+        employee.setDepartment("Operations");
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        employee = employeeRepository.save(employee);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void testArchive_ShouldMoveOnlyClosedLeavesPastTheHorizon() throws Exception {
+        LocalDate longAgo = LocalDate.now().minusDays(120);
+        LeaveRequest approvedOld = save(LeaveRequest.LeaveStatus.APPROVED, longAgo);
+        LeaveRequest rejectedOld = save(LeaveRequest.LeaveStatus.REJECTED, longAgo.plusDays(10));
+        LeaveRequest pendingOld = save(LeaveRequest.LeaveStatus.PENDING, longAgo.plusDays(20));
+        LeaveRequest approvedRecent = save(LeaveRequest.LeaveStatus.APPROVED, LocalDate.now().minusDays(10));
+        rebuildIndexes();
+
+        assertEquals(2, leaveArchiver.archive());
+
+        assertEquals(List.of(pendingOld.getId(), approvedRecent.getId()),
+                leaveRequestRepository.findAll().stream().map(LeaveRequest::getId).sorted().toList());
+        assertEquals(List.of(approvedOld.getId(), rejectedOld.getId()),
+                archivedLeaveRequestRepository.findAll().stream().map(ArchivedLeaveRequest::getId).sorted().toList());
+
+        // The dashboard and the availability index describe the live table only
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.byStatus.REJECTED", is(0)))
+                .andExpect(jsonPath("$.byStatus.APPROVED", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+        assertTrue(departmentAvailabilityIndex.employeesOnLeave("Operations", longAgo, longAgo.plusDays(2)).isEmpty());
+
+        assertEquals(0, leaveArchiver.archive());
+    }
+
+    @Test
+    public void testArchive_ShouldStopAfterMaxChunksAndResumeNextRun() {
+        LocalDate longAgo = LocalDate.now().minusDays(200);
+        for (int i = 0; i < 5; i++) {
+            save(LeaveRequest.LeaveStatus.CANCELLED, longAgo.plusDays(10L * i));
+        }
+        rebuildIndexes();
+        double archivedBefore = meterRegistry.counter("app.leave-archive.archived").count();
+
+        assertEquals(4, leaveArchiver.archive());
+        assertEquals(1, leaveRequestRepository.count());
+        assertEquals(1, leaveArchiver.archive());
+        assertEquals(0, leaveRequestRepository.count());
+        assertEquals(archivedBefore + 5, meterRegistry.counter("app.leave-archive.archived").count());
+    }
+
+    @Test
+    public void testArchive_ShouldBackOffWhileRequestsWaitForConnections() {
+        save(LeaveRequest.LeaveStatus.REJECTED, LocalDate.now().minusDays(90));
+        rebuildIndexes();
+
+        PENDING_CONNECTIONS.set(3);
+        assertEquals(0, leaveArchiver.archive());
+        assertEquals(1, leaveRequestRepository.count());
+
+        PENDING_CONNECTIONS.set(0);
+        assertEquals(1, leaveArchiver.archive());
+        assertEquals(0, leaveRequestRepository.count());
+    }
+
+    @Test
+    public void testReadEndpoints_ShouldIncludeArchivedLeavesOnlyWhenAsked() throws Exception {
+        LeaveRequest archived = save(LeaveRequest.LeaveStatus.REJECTED, LocalDate.now().minusDays(100));
+        LeaveRequest live = save(LeaveRequest.LeaveStatus.PENDING, LocalDate.now().plusDays(5));
+        rebuildIndexes();
+        assertEquals(1, leaveArchiver.archive());
+
+        mockMvc.perform(get("/api/leaves"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(live.getId().intValue())));
+        mockMvc.perform(get("/api/leaves").param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(archived.getId().intValue(), live.getId().intValue())))
+                .andExpect(jsonPath("$[0].status", is("REJECTED")))
+                .andExpect(jsonPath("$[0].employee.department", is("Operations")));
+
+        mockMvc.perform(get("/api/leaves/{id}", archived.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/leaves/{id}", archived.getId()).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(archived.getId().intValue())))
+                .andExpect(header().exists("ETag"));
+
+        mockMvc.perform(get("/api/leaves/employees/{id}", employee.getId()))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/leaves/employees/{id}", employee.getId()).param("includeArchived", "true"))
+                .andExpect(jsonPath("$[*].id", contains(archived.getId().intValue(), live.getId().intValue())));
+
+        mockMvc.perform(get("/api/leaves/search").param("status", "REJECTED"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/leaves/search").param("status", "REJECTED").param("includeArchived", "true"))
+                .andExpect(jsonPath("$[*].id", contains(archived.getId().intValue())));
+    }
+
+    @Test
+    public void testIncludeArchived_ShouldPageAcrossBothTablesInIdOrder() throws Exception {
+        LocalDate longAgo = LocalDate.now().minusDays(300);
+        LeaveRequest first = save(LeaveRequest.LeaveStatus.APPROVED, longAgo);
+        LeaveRequest second = save(LeaveRequest.LeaveStatus.PENDING, LocalDate.now().plusDays(3));
+        LeaveRequest third = save(LeaveRequest.LeaveStatus.CANCELLED, longAgo.plusDays(30));
+        rebuildIndexes();
+        assertEquals(2, leaveArchiver.archive());
+
+        String next = mockMvc.perform(get("/api/leaves").param("includeArchived", "true").param("limit", "2"))
+                .andExpect(jsonPath("$[*].id", contains(first.getId().intValue(), second.getId().intValue())))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/api/leaves").param("includeArchived", "true").param("limit", "2").param("after", next))
+                .andExpect(jsonPath("$[*].id", contains(third.getId().intValue())))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testDeletingEmployee_ShouldRemoveTheirArchivedLeaves() throws Exception {
+        save(LeaveRequest.LeaveStatus.REJECTED, LocalDate.now().minusDays(60));
+        rebuildIndexes();
+        assertEquals(1, leaveArchiver.archive());
+
+        employeeRepository.deleteById(employee.getId());
+
+        assertEquals(0, archivedLeaveRequestRepository.count());
+        assertFalse(employeeRepository.existsById(employee.getId()));
+    }
+
+    // Saved straight through the repository to backdate them, so the in-memory indexes are rebuilt afterwards
+    private LeaveRequest save(LeaveRequest.LeaveStatus status, LocalDate startDate) {
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employee);
+        leave.setStartDate(startDate);
+        leave.setEndDate(startDate.plusDays(2));
+        leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        leave.setStatus(status);
+        leave.setDateApplied(startDate.minusDays(14));
+        return leaveRequestRepository.save(leave);
+    }
+
+    private void rebuildIndexes() {
+        leaveCounters.rebuild();
+        departmentAvailabilityIndex.rebuild();
+    }
+}
@@ -0,0 +1,254 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.archive.LeaveArchiver;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveBalance;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveBalanceRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.OutboxEventRepository;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveBalanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.leave-archive.horizon=30d")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class LeaveBalanceIntegrationTest {
+
+    // Next year, so the leave is in the future whatever today is
+    private static final int YEAR = LocalDate.now().getYear() + 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Autowired
+    private LeaveArchiver leaveArchiver;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setUp() {
+        cleanUp();
+        employee = new Employee();
+        employee.setFirstName("Chidi");
+        employee.setLastName("Nwosu");
+        employee.setEmail("chidi.nwosu@flexisaf.com");
+        employee.setDepartment("Engineering");
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        employee = employeeRepository.save(employee);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        outboxEventRepository.deleteAllInBatch();
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void testApply_ShouldHoldTheDaysAsPending() throws Exception {
+        apply("ANNUAL", LocalDate.of(YEAR, 3, 2), LocalDate.of(YEAR, 3, 6))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/leaves/employees/{id}/balances", employee.getId()).param("year", "" + YEAR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeId", is(employee.getId().intValue())))
+                .andExpect(jsonPath("$.year", is(YEAR)))
+                .andExpect(jsonPath("$.balances", hasSize(LeaveRequest.LeaveType.values().length)))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'ANNUAL')].entitlement").value(20))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'ANNUAL')].pending").value(5))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'ANNUAL')].used").value(0))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'ANNUAL')].remaining").value(15))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'CASUAL')].remaining").value(5));
+    }
+
+    @Test
+    public void testApply_BeyondTheEntitlement_ShouldReturnConflictAndSaveNothing() throws Exception {
+        apply("CASUAL", LocalDate.of(YEAR, 5, 4), LocalDate.of(YEAR, 5, 6))
+                .andExpect(status().isCreated());
+
+        apply("CASUAL", LocalDate.of(YEAR, 6, 1), LocalDate.of(YEAR, 6, 3))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", containsString("2 of 5 days remaining, 3 requested")));
+
+        assertEquals(1, leaveRequestRepository.count());
+        assertEquals(List.of(3, 0), pendingAndUsed(YEAR, LeaveRequest.LeaveType.CASUAL));
+
+        // What is left can still be taken
+        apply("CASUAL", LocalDate.of(YEAR, 6, 1), LocalDate.of(YEAR, 6, 2))
+                .andExpect(status().isCreated());
+        assertEquals(List.of(5, 0), pendingAndUsed(YEAR, LeaveRequest.LeaveType.CASUAL));
+    }
+
+    @Test
+    public void testApply_SickLeave_ShouldBeTrackedButNotCapped() throws Exception {
+        apply("SICK", LocalDate.of(YEAR, 1, 5), LocalDate.of(YEAR, 3, 5))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/leaves/employees/{id}/balances", employee.getId()).param("year", "" + YEAR))
+                .andExpect(jsonPath("$.balances[1].leaveType", is("SICK")))
+                .andExpect(jsonPath("$.balances[1].pending", is(60)))
+                .andExpect(jsonPath("$.balances[1].entitlement", nullValue()))
+                .andExpect(jsonPath("$.balances[1].remaining", nullValue()));
+    }
+
+    @Test
+    public void testReviewAndCancel_ShouldMoveAndReleaseDays() throws Exception {
+        Long approved = id(apply("ANNUAL", LocalDate.of(YEAR, 4, 6), LocalDate.of(YEAR, 4, 10)));
+        Long rejected = id(apply("ANNUAL", LocalDate.of(YEAR, 5, 11), LocalDate.of(YEAR, 5, 12)));
+        Long cancelled = id(apply("ANNUAL", LocalDate.of(YEAR, 7, 1), LocalDate.of(YEAR, 7, 3)));
+        assertEquals(List.of(10, 0), pendingAndUsed(YEAR, LeaveRequest.LeaveType.ANNUAL));
+
+        review(approved, "APPROVED");
+        review(rejected, "REJECTED");
+        assertEquals(List.of(3, 5), pendingAndUsed(YEAR, LeaveRequest.LeaveType.ANNUAL));
+
+        mockMvc.perform(delete("/api/leaves/{id}", cancelled))
+                .andExpect(status().isNoContent());
+        assertEquals(List.of(0, 5), pendingAndUsed(YEAR, LeaveRequest.LeaveType.ANNUAL));
+
+        // Cancelling approved leave gives the days back too
+        mockMvc.perform(delete("/api/leaves/{id}", approved))
+                .andExpect(status().isNoContent());
+        assertEquals(List.of(0, 0), pendingAndUsed(YEAR, LeaveRequest.LeaveType.ANNUAL));
+    }
+
+    @Test
+    public void testLeaveOverNewYear_ShouldCountTowardsBothYears() throws Exception {
+        apply("STUDY", LocalDate.of(YEAR, 12, 28), LocalDate.of(YEAR + 1, 1, 3))
+                .andExpect(status().isCreated());
+
+        assertEquals(List.of(4, 0), pendingAndUsed(YEAR, LeaveRequest.LeaveType.STUDY));
+        assertEquals(List.of(3, 0), pendingAndUsed(YEAR + 1, LeaveRequest.LeaveType.STUDY));
+
+        // Only the first year is short of days
+        apply("STUDY", LocalDate.of(YEAR, 12, 20), LocalDate.of(YEAR, 12, 26))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", containsString("in " + YEAR + ":")));
+    }
+
+    @Test
+    public void testRebuild_ShouldRecomputeTotalsFromLiveAndArchivedLeave() throws Exception {
+        apply("ANNUAL", LocalDate.of(YEAR, 2, 2), LocalDate.of(YEAR, 2, 4))
+                .andExpect(status().isCreated());
+        // Written behind the ledger's back: last year's approved leave, which gets archived, and one for next year
+        int lastYear = LocalDate.now().getYear() - 1;
+        save(LeaveRequest.LeaveStatus.APPROVED, LocalDate.of(lastYear, 6, 1), LocalDate.of(lastYear, 6, 2));
+        save(LeaveRequest.LeaveStatus.APPROVED, LocalDate.of(YEAR, 9, 7), LocalDate.of(YEAR, 9, 8));
+        assertEquals(1, leaveArchiver.archive());
+        LeaveBalance balance = leaveBalanceRepository.findByEmployeeIdAndYear(employee.getId(), YEAR).get(0);
+        balance.setPendingDays(11);
+        leaveBalanceRepository.save(balance);
+
+        assertEquals(2, leaveBalanceService.rebuildLeaveBalances());
+
+        assertEquals(List.of(3, 2), pendingAndUsed(YEAR, LeaveRequest.LeaveType.ANNUAL));
+        assertEquals(List.of(0, 2), pendingAndUsed(lastYear, LeaveRequest.LeaveType.ANNUAL));
+
+        assertEquals(0, leaveBalanceService.rebuildLeaveBalances());
+    }
+
+    @Test
+    public void testGetBalances_ForUnknownEmployee_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/leaves/employees/{id}/balances", 999_999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetBalances_WithoutYear_ShouldUseTheCurrentYear() throws Exception {
+        mockMvc.perform(get("/api/leaves/employees/{id}/balances", employee.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.year", is(LocalDate.now().getYear())))
+                .andExpect(jsonPath("$.balances[?(@.leaveType == 'ANNUAL')].used").value(0));
+    }
+
+    private ResultActions apply(String leaveType, LocalDate startDate, LocalDate endDate) throws Exception {
+        return mockMvc.perform(post("/api/leaves")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "employee", Map.of("id", employee.getId()),
+                        "startDate", startDate.toString(),
+                        "endDate", endDate.toString(),
+                        "leaveType", leaveType))));
+    }
+
+    private Long id(ResultActions result) throws Exception {
+        String body = result.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private void review(Long id, String status) throws Exception {
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(id), "status", status))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)));
+    }
+
+    private LeaveRequest save(LeaveRequest.LeaveStatus status, LocalDate startDate, LocalDate endDate) {
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employee);
+        leave.setStartDate(startDate);
+        leave.setEndDate(endDate);
+        leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        leave.setStatus(status);
+        leave.setDateApplied(startDate.minusDays(14));
+        return leaveRequestRepository.save(leave);
+    }
+
+    private List<Integer> pendingAndUsed(int year, LeaveRequest.LeaveType leaveType) {
+        return leaveBalanceRepository.findByEmployeeIdAndYear(employee.getId(), year).stream()
+                .filter(balance -> balance.getId().getLeaveType() == leaveType)
+                .map(balance -> List.of(balance.getPendingDays(), balance.getUsedDays()))
+                .findFirst()
+                .orElse(List.of(0, 0));
+    }
+}
@@ -1,29 +1,64 @@
 package com.flexisaf.FlexiSAF_wk7.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.cache.EmployeeCache;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewRequest;
+import com.flexisaf.FlexiSAF_wk7.dto.BulkReviewResult;
 import com.flexisaf.FlexiSAF_wk7.entity.Employee;
 import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.exception.LeaveConflictException;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveCounters;
+import com.flexisaf.FlexiSAF_wk7.index.LeaveIntervalIndex;
 import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
 import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.service.EmployeeService;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
-@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
 public class LeaveRequestControllerIntegrationTest {
 
     @Autowired
@@ -38,6 +73,33 @@ public class LeaveRequestControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LeaveRequestService leaveRequestService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private LeaveCounters leaveCounters;
+
+    @Autowired
+    private LeaveIntervalIndex leaveIntervalIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Employee testEmployee;
     private LeaveRequest testLeaveRequest;
 
@@ -61,6 +123,7 @@ public class LeaveRequestControllerIntegrationTest {
         testEmployee.setActive(true);
         testEmployee.setAddress("123 Main St, Lagos, Nigeria");
         testEmployee = employeeRepository.save(testEmployee);
+        leaveCounters.rebuild();
 
         // Create test leave request
         testLeaveRequest = new LeaveRequest();
@@ -237,7 +300,8 @@ public class LeaveRequestControllerIntegrationTest {
             LeaveRequest request = new LeaveRequest();
             request.setEmployee(testEmployee);
             request.setStartDate(LocalDate.now().plusDays(7 + (i * 10)));
-            request.setEndDate(LocalDate.now().plusDays(14 + (i * 10)));
+            // Short enough to fit every type's yearly entitlement
+            request.setEndDate(LocalDate.now().plusDays(9 + (i * 10)));
             request.setLeaveType(leaveTypes[i]);
             request.setReason("Testing " + leaveTypes[i]);
 
@@ -282,4 +346,566 @@ public class LeaveRequestControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status", is("CANCELLED")));
     }
+
+    @Test
+    public void testGetAllLeaveRequests_WithLimit_ShouldReturnPagesLinkedByCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            LeaveRequest request = new LeaveRequest();
+            request.setEmployee(testEmployee);
+            request.setStartDate(LocalDate.now().plusDays(10 * i));
+            request.setEndDate(LocalDate.now().plusDays(10 * i + 2));
+            request.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+            request.setReason("Page " + i);
+            leaveRequestRepository.save(request);
+        }
+
+        String nextCursor = mockMvc.perform(get("/api/leaves")
+                        .param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].reason", is("Page 0")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/leaves")
+                        .param("limit", "2")
+                        .param("after", nextCursor)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].reason", is("Page 2")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testGetAllLeaveRequests_WithLimitOutOfRange_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/leaves")
+                        .param("limit", "0")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportLeaveRequests_ShouldStreamOneJsonDocumentPerLine() throws Exception {
+        leaveRequestRepository.save(testLeaveRequest);
+        LeaveRequest second = new LeaveRequest();
+        second.setEmployee(testEmployee);
+        second.setStartDate(LocalDate.now().plusDays(30));
+        second.setEndDate(LocalDate.now().plusDays(31));
+        second.setLeaveType(LeaveRequest.LeaveType.SICK);
+        second.setReason("Checkup");
+        leaveRequestRepository.save(second);
+
+        String body = mockMvc.perform(get("/api/leaves/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Family vacation", objectMapper.readTree(lines[0]).get("reason").asText());
+        assertEquals(testEmployee.getId(), objectMapper.readTree(lines[1]).get("employee").get("id").asLong());
+    }
+
+    @Test
+    public void testEmployeeExistenceChecks_ShouldBeServedFromCacheUntilEmployeeIsUpdated() throws Exception {
+        long hitsBefore = employeeCache.stats().hitCount();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/leaves/employees/{employeeId}", testEmployee.getId())
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+        assertEquals(hitsBefore + 1, employeeCache.stats().hitCount());
+        assertNotNull(employeeCache.getIfPresent(testEmployee.getId()));
+
+        testEmployee.setDepartment("Finance");
+        mockMvc.perform(put("/api/employees/{id}", testEmployee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testEmployee)))
+                .andExpect(status().isOk());
+        assertNull(employeeCache.getIfPresent(testEmployee.getId()));
+
+        mockMvc.perform(get("/api/employees/cache/stats")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount", greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    public void testGetAllLeaveRequests_ShouldRunOneStatementRegardlessOfRowCount() throws Exception {
+        for (int e = 0; e < 3; e++) {
+            Employee employee = new Employee();
+            employee.setFirstName("Employee" + e);
+            employee.setLastName("Listed");
+            employee.setEmail("listed" + e + "@flexisaf.com");
+            employee.setAddress("Address " + e);
+            employee = employeeRepository.save(employee);
+            for (int l = 0; l < 2; l++) {
+                LeaveRequest request = new LeaveRequest();
+                request.setEmployee(employee);
+                request.setStartDate(LocalDate.now().plusDays(l));
+                request.setEndDate(LocalDate.now().plusDays(l + 1));
+                request.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+                leaveRequestRepository.save(request);
+            }
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/leaves")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)))
+                .andExpect(jsonPath("$[0].employee.firstName", is("Employee0")))
+                .andExpect(jsonPath("$[0].employee.address").doesNotExist());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testApplyLeaveRequest_OverlappingActiveLeave_ShouldReturnConflict() throws Exception {
+        mockMvc.perform(post("/api/leaves")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testLeaveRequest)))
+                .andExpect(status().isCreated());
+
+        LeaveRequest overlapping = new LeaveRequest();
+        overlapping.setEmployee(testEmployee);
+        overlapping.setStartDate(testLeaveRequest.getEndDate());
+        overlapping.setEndDate(testLeaveRequest.getEndDate().plusDays(3));
+        overlapping.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+
+        mockMvc.perform(post("/api/leaves")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overlapping)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testApplyLeaveRequest_AfterCancellingOverlappingLeave_ShouldSucceed() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+        leaveRequestService.cancelLeaveRequest(saved.getId());
+
+        LeaveRequest replacement = new LeaveRequest();
+        replacement.setEmployee(testEmployee);
+        replacement.setStartDate(testLeaveRequest.getStartDate().plusDays(1));
+        replacement.setEndDate(testLeaveRequest.getEndDate());
+        replacement.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+
+        mockMvc.perform(post("/api/leaves")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(replacement)))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    public void testCancelLeaveRequest_Twice_ShouldReturnBadRequestAndLeaveTheCountsAlone() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        mockMvc.perform(delete("/api/leaves/{id}", saved.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/leaves/{id}", saved.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("already CANCELLED")));
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(1)))
+                .andExpect(jsonPath("$.byStatus.CANCELLED", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+    }
+
+    @Test
+    public void testReviewLeaveRequest_AfterCancel_ShouldBeRejected() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+        leaveRequestService.cancelLeaveRequest(saved.getId());
+
+        LeaveRequest approval = new LeaveRequest();
+        approval.setStatus(LeaveRequest.LeaveStatus.APPROVED);
+        assertThrows(IllegalArgumentException.class,
+                () -> leaveRequestService.reviewLeaveRequest(saved.getId(), approval));
+
+        mockMvc.perform(get("/api/leaves/{id}", saved.getId()))
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+        mockMvc.perform(get("/api/leaves/availability")
+                        .param("department", "IT")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().plusDays(90).toString()))
+                .andExpect(jsonPath("$.employeesOnLeave", hasSize(0)));
+    }
+
+    @Test
+    public void testApplyLeaveRequest_ConcurrentOverlappingSubmissions_ShouldAcceptExactlyOne() throws Exception {
+        int submissions = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(submissions);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < submissions; i++) {
+                int offset = i;
+                results.add(executor.submit(() -> {
+                    LeaveRequest request = new LeaveRequest();
+                    request.setEmployee(testEmployee);
+                    request.setStartDate(LocalDate.now().plusDays(40 + offset % 2));
+                    request.setEndDate(LocalDate.now().plusDays(45));
+                    request.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+                    start.await();
+                    try {
+                        leaveRequestService.applyLeaveRequest(request);
+                        return true;
+                    } catch (LeaveConflictException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get() ? 1 : 0;
+            }
+            assertEquals(1, accepted);
+            assertEquals(1, leaveRequestRepository.findByEmployeeId(testEmployee.getId()).size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetTeamAvailability_ShouldReflectApprovalsAndCancellations() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+        LeaveRequest approval = new LeaveRequest();
+        approval.setStatus(LeaveRequest.LeaveStatus.APPROVED);
+        leaveRequestService.reviewLeaveRequest(saved.getId(), approval);
+
+        mockMvc.perform(get("/api/leaves/availability")
+                        .param("department", "IT")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().plusDays(90).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeesOnLeave", contains(testEmployee.getId().intValue())));
+
+        mockMvc.perform(get("/api/leaves/availability")
+                        .param("department", "IT")
+                        .param("from", LocalDate.now().plusDays(15).toString())
+                        .param("to", LocalDate.now().plusDays(90).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeesOnLeave", hasSize(0)));
+
+        mockMvc.perform(delete("/api/leaves/{id}", saved.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/leaves/availability")
+                        .param("department", "IT")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().plusDays(90).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeesOnLeave", hasSize(0)));
+    }
+
+    @Test
+    public void testBulkReview_ShouldUpdatePendingAndSkipTheRest() throws Exception {
+        LeaveRequest first = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        LeaveRequest second = new LeaveRequest();
+        second.setEmployee(testEmployee);
+        second.setStartDate(LocalDate.now().plusDays(30));
+        second.setEndDate(LocalDate.now().plusDays(31));
+        second.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+        second = leaveRequestService.applyLeaveRequest(second);
+
+        LeaveRequest cancelled = new LeaveRequest();
+        cancelled.setEmployee(testEmployee);
+        cancelled.setStartDate(LocalDate.now().plusDays(50));
+        cancelled.setEndDate(LocalDate.now().plusDays(51));
+        cancelled.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+        cancelled = leaveRequestService.applyLeaveRequest(cancelled);
+        leaveRequestService.cancelLeaveRequest(cancelled.getId());
+
+        String body = objectMapper.writeValueAsString(Map.of(
+                "ids", List.of(first.getId(), second.getId(), cancelled.getId(), 999_999L),
+                "status", "APPROVED",
+                "managerComment", "Enjoy"));
+
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested", is(4)))
+                .andExpect(jsonPath("$.updated", is(2)))
+                .andExpect(jsonPath("$.skippedIds", contains(cancelled.getId().intValue(), 999_999)));
+
+        mockMvc.perform(get("/api/leaves/{id}", first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("APPROVED")))
+                .andExpect(jsonPath("$.managerComment", is("Enjoy")))
+                .andExpect(jsonPath("$.dateReviewed", notNullValue()));
+
+        mockMvc.perform(get("/api/leaves/availability")
+                        .param("department", "IT")
+                        .param("from", LocalDate.now().plusDays(30).toString())
+                        .param("to", LocalDate.now().plusDays(30).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeesOnLeave", contains(testEmployee.getId().intValue())));
+    }
+
+    @Test
+    public void testBulkReview_ShouldHoldTheEmployeesLockUntilTheIndexesAreUpdated() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        ExecutorService reviewer = Executors.newSingleThreadExecutor();
+        try {
+            // A cancel holds this lock from reading the row until its index update, so the review must wait for it
+            Future<BulkReviewResult> review = leaveIntervalIndex.locked(testEmployee.getId(), () -> {
+                Future<BulkReviewResult> pending = reviewer.submit(() -> leaveRequestService.reviewLeaveRequests(
+                        new BulkReviewRequest(List.of(saved.getId()), LeaveRequest.LeaveStatus.APPROVED, null)));
+                assertThrows(TimeoutException.class, () -> pending.get(200, TimeUnit.MILLISECONDS));
+                assertEquals(LeaveRequest.LeaveStatus.PENDING,
+                        leaveRequestRepository.findById(saved.getId()).orElseThrow().getStatus());
+                return pending;
+            });
+
+            assertEquals(1, review.get(5, TimeUnit.SECONDS).updated());
+        } finally {
+            reviewer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBulkReview_WithCancelledStatus_ShouldReturnBadRequest() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("ids", List.of(1L), "status", "CANCELLED"));
+
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testDashboard_ShouldFollowLeaveChangesWithoutQueries() throws Exception {
+        LeaveRequest annual = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        LeaveRequest casual = new LeaveRequest();
+        casual.setEmployee(testEmployee);
+        casual.setStartDate(LocalDate.now().plusDays(30));
+        casual.setEndDate(LocalDate.now().plusDays(31));
+        casual.setLeaveType(LeaveRequest.LeaveType.CASUAL);
+        casual = leaveRequestService.applyLeaveRequest(casual);
+        leaveRequestService.cancelLeaveRequest(casual.getId());
+
+        String body = objectMapper.writeValueAsString(Map.of("ids", List.of(annual.getId()), "status", "APPROVED"));
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.byStatus.PENDING", is(0)))
+                .andExpect(jsonPath("$.byStatus.APPROVED", is(1)))
+                .andExpect(jsonPath("$.byStatus.CANCELLED", is(1)))
+                .andExpect(jsonPath("$.byType.ANNUAL.APPROVED", is(1)))
+                .andExpect(jsonPath("$.byType.CASUAL.CANCELLED", is(1)))
+                .andExpect(jsonPath("$.byDepartment.IT.APPROVED", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+
+        Employee moved = employeeRepository.findWithAddressById(testEmployee.getId()).orElseThrow();
+        moved.setDepartment("HR");
+        employeeService.updateEmployee(moved.getId(), moved);
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.byDepartment.IT.APPROVED", is(0)))
+                .andExpect(jsonPath("$.byDepartment.HR.APPROVED", is(1)))
+                .andExpect(jsonPath("$.byDepartment.HR.CANCELLED", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+    }
+
+    @Test
+    public void testDashboard_ReconcileShouldRepairDrift() throws Exception {
+        // Saved straight through the repository, so the counters never hear about it
+        testLeaveRequest.setStatus(LeaveRequest.LeaveStatus.PENDING);
+        leaveRequestRepository.save(testLeaveRequest);
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(0)));
+
+        assertEquals(LeaveCounters.Reconciliation.REPAIRED, leaveCounters.reconcile());
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(1)))
+                .andExpect(jsonPath("$.byStatus.PENDING", is(1)))
+                .andExpect(jsonPath("$.byDepartment.IT.PENDING", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+    }
+
+    @Test
+    public void testDashboard_ReconcileWhileALeaveChangeCommits_ShouldNotCountItTwice() throws Exception {
+        Counter skipped = meterRegistry.counter("app.leave-counters.reconcile", "outcome", "skipped");
+        double skippedBefore = skipped.count();
+        ExecutorService reconciler = Executors.newSingleThreadExecutor();
+        try {
+            List<Future<LeaveCounters.Reconciliation>> rounds = new ArrayList<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // Registered first, so it runs once the leave is committed but before the counters have taken it
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        Future<LeaveCounters.Reconciliation> round = reconciler.submit(leaveCounters::reconcile);
+                        rounds.add(round);
+                        try {
+                            round.get();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                leaveRequestService.applyLeaveRequest(testLeaveRequest);
+            });
+
+            // Every attempt read the committed leave while the change was in flight, so the round gave up rather
+            // than reload, and says so
+            assertEquals(LeaveCounters.Reconciliation.SKIPPED, rounds.get(0).get());
+            assertEquals(skippedBefore + 1, skipped.count());
+        } finally {
+            reconciler.shutdownNow();
+        }
+
+        mockMvc.perform(get("/api/leaves/stats"))
+                .andExpect(jsonPath("$.total", is(1)))
+                .andExpect(jsonPath("$.byStatus.PENDING", is(1)));
+        assertEquals(LeaveCounters.Reconciliation.CONSISTENT, leaveCounters.reconcile());
+    }
+
+    @Test
+    public void testGetLeaveRequest_WithMatchingETag_ShouldReturnNotModifiedUntilLeaveOrEmployeeChanges() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        String etag = mockMvc.perform(get("/api/leaves/{id}", saved.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/leaves/{id}", saved.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // The representation embeds the employee's name, so renaming them must change the tag
+        Employee renamed = employeeRepository.findWithAddressById(testEmployee.getId()).orElseThrow();
+        renamed.setLastName("Smith");
+        employeeService.updateEmployee(renamed.getId(), renamed);
+
+        String renamedTag = mockMvc.perform(get("/api/leaves/{id}", saved.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employee.lastName", is("Smith")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String body = objectMapper.writeValueAsString(Map.of("ids", List.of(saved.getId()), "status", "APPROVED"));
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/leaves/{id}", saved.getId()).header("If-None-Match", renamedTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("APPROVED")));
+    }
+
+    @Test
+    public void testGetAllLeaveRequests_WithMatchingETag_ShouldReturnNotModifiedUntilCollectionChanges() throws Exception {
+        // Weak, because the JSON, CBOR and Smile bodies share it
+        String etag = mockMvc.perform(get("/api/leaves"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/leaves").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        leaveRequestService.applyLeaveRequest(testLeaveRequest);
+
+        mockMvc.perform(get("/api/leaves").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void testSearchLeaveRequests_ShouldCombineFiltersAndMatchOverlappingDates() throws Exception {
+        Employee other = new Employee();
+        other.setFirstName("Jane");
+        other.setLastName("Roe");
+        other.setEmail("jane.roe@flexisaf.com");
+        other.setDepartment("HR");
+        other = employeeRepository.save(other);
+
+        LocalDate start = LocalDate.of(2025, 3, 10);
+        LeaveRequest running = searchable(testEmployee, start, start.plusDays(10), LeaveRequest.LeaveStatus.APPROVED);
+        searchable(testEmployee, start.plusDays(30), start.plusDays(32), LeaveRequest.LeaveStatus.APPROVED);
+        searchable(testEmployee, start, start.plusDays(2), LeaveRequest.LeaveStatus.PENDING);
+        searchable(other, start, start.plusDays(5), LeaveRequest.LeaveStatus.APPROVED);
+
+        // Starts before the range but is still running inside it
+        mockMvc.perform(get("/api/leaves/search")
+                        .param("employeeId", testEmployee.getId().toString())
+                        .param("status", "APPROVED")
+                        .param("from", start.plusDays(5).toString())
+                        .param("to", start.plusDays(20).toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", containsString("statements=1")))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(running.getId().intValue())));
+
+        mockMvc.perform(get("/api/leaves/search")
+                        .param("department", "HR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].employee.email", is("jane.roe@flexisaf.com")));
+
+        // The next link keeps the filters
+        mockMvc.perform(get("/api/leaves/search?status=APPROVED&leaveType=ANNUAL&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("Link", containsString("status=APPROVED")))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testSearchLeaveRequests_WithInvertedDateRange_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/leaves/search")
+                        .param("from", "2025-03-10")
+                        .param("to", "2025-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetAllLeaveRequests_WithSmile_ShouldReturnSmile() throws Exception {
+        LeaveRequest saved = leaveRequestService.applyLeaveRequest(testLeaveRequest);
+        MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+
+        byte[] body = mockMvc.perform(get("/api/leaves").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode first = smileConverter.getObjectMapper().readTree(body).get(0);
+        assertEquals(saved.getId().longValue(), first.get("id").asLong());
+        assertEquals("ANNUAL", first.get("leaveType").asText());
+        assertEquals(testLeaveRequest.getStartDate().toString(), first.get("startDate").asText());
+        assertEquals("john.doe@flexisaf.com", first.get("employee").get("email").asText());
+    }
+
+    private LeaveRequest searchable(Employee employee, LocalDate startDate, LocalDate endDate,
+                                    LeaveRequest.LeaveStatus status) {
+        LeaveRequest request = new LeaveRequest();
+        request.setEmployee(employee);
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        request.setStatus(status);
+        return leaveRequestRepository.save(request);
+    }
 }
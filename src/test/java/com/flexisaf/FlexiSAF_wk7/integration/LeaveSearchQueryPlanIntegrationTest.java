@@ -0,0 +1,166 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.LeaveSearchCriteria;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Runs the SQL that the leave search generates through H2's EXPLAIN and checks that the common filters are
+ * answered from the composite indexes created by the V2 migration rather than by scanning leave_requests.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.flexisaf.FlexiSAF_wk7.integration.LeaveSearchQueryPlanIntegrationTest$LastLeaveSelect"
+})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class LeaveSearchQueryPlanIntegrationTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 3, 31);
+
+    @Autowired
+    private LeaveRequestService leaveRequestService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setUp() {
+        leaveRequestRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Employee e = new Employee();
+            e.setFirstName("First" + i);
+            e.setLastName("Last" + i);
+            e.setEmail("plan" + i + "@flexisaf.com");
+            e.setDepartment("Dept" + i % 10);
+            e.setStatus(Employee.EmploymentStatus.FULL_TIME);
+            e.setActive(true);
+            employees.add(e);
+        }
+        employees = employeeRepository.saveAll(employees);
+        employee = employees.get(0);
+
+        LeaveRequest.LeaveStatus[] statuses = LeaveRequest.LeaveStatus.values();
+        List<LeaveRequest> leaves = new ArrayList<>();
+        for (Employee e : employees) {
+            for (int i = 0; i < 8; i++) {
+                LeaveRequest leave = new LeaveRequest();
+                leave.setEmployee(e);
+                leave.setStartDate(LocalDate.of(2024, 1, 1).plusDays(i * 40L));
+                leave.setEndDate(leave.getStartDate().plusDays(5));
+                leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+                leave.setStatus(statuses[i % statuses.length]);
+                leaves.add(leave);
+            }
+        }
+        leaveRequestRepository.saveAll(leaves);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        leaveRequestRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testSearchByEmployeeAndDates_ShouldUseEmployeeStartDateIndex() {
+        String plan = planOf(new LeaveSearchCriteria(null, null, employee.getId(), null, FROM, TO));
+
+        assertThat(plan, containsStringIgnoringCase("idx_leave_requests_employee_start"));
+        assertThat(plan, not(containsStringIgnoringCase("leave_requests.tableScan")));
+    }
+
+    @Test
+    public void testSearchByStatusAndDates_ShouldUseStatusStartDateIndex() {
+        String plan = planOf(new LeaveSearchCriteria(LeaveRequest.LeaveStatus.PENDING, null, null, null, FROM, TO));
+
+        assertThat(plan, containsStringIgnoringCase("idx_leave_requests_status_start"));
+        assertThat(plan, not(containsStringIgnoringCase("leave_requests.tableScan")));
+    }
+
+    @Test
+    public void testSearchByDepartment_ShouldStartFromDepartmentIndex() {
+        String plan = planOf(new LeaveSearchCriteria(null, null, null, "Dept3", null, null));
+
+        // The join back to leave_requests then goes through an employee_id index
+        assertThat(plan, containsStringIgnoringCase("idx_employees_department"));
+        assertThat(plan, not(containsStringIgnoringCase("tableScan")));
+    }
+
+    private String planOf(LeaveSearchCriteria criteria) {
+        LastLeaveSelect.sql = null;
+        leaveRequestService.searchLeaveRequests(criteria, null, 20, false);
+        // Re-run the statement Hibernate just issued under EXPLAIN, with the same values bound
+        return jdbcTemplate.queryForList("explain " + LastLeaveSelect.sql, String.class, parameters(criteria))
+                .get(0);
+    }
+
+    // Bound in the order LeaveRequestSpecifications adds the predicates, then the cursor and the row limit
+    private static Object[] parameters(LeaveSearchCriteria criteria) {
+        List<Object> parameters = new ArrayList<>();
+        if (criteria.status() != null) {
+            parameters.add(criteria.status().name());
+        }
+        if (criteria.employeeId() != null) {
+            parameters.add(criteria.employeeId());
+        }
+        if (criteria.department() != null) {
+            parameters.add(criteria.department());
+        }
+        if (criteria.from() != null) {
+            parameters.add(criteria.to());
+            parameters.add(criteria.from());
+        }
+        parameters.add(0L);
+        parameters.add(21);
+        return parameters.toArray();
+    }
+
+    public static class LastLeaveSelect implements StatementInspector {
+
+        private static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("select") && sql.contains("leave_requests")) {
+                LastLeaveSelect.sql = sql;
+            }
+            return sql;
+        }
+    }
+}
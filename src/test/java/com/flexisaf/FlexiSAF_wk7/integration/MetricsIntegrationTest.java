@@ -0,0 +1,74 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testPrometheusScrape_ShouldExposeControllerServicePoolAndHibernateMetrics() throws Exception {
+        Employee employee = new Employee();
+        employee.setFirstName("Ada");
+        employee.setLastName("Obi");
+        employee.setEmail("ada.obi@flexisaf.com");
+        employee.setDepartment("IT");
+        employee.setDateofHire(LocalDate.of(2024, 2, 1));
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/leaves"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        // Controller and service timers per method, with histogram buckets for percentiles
+                        containsString("app_controller_seconds_bucket{class=\"com.flexisaf.FlexiSAF_wk7.controller.EmployeeController\""),
+                        containsString("method=\"createEmployee\""),
+                        containsString("app_controller_seconds_bucket{class=\"com.flexisaf.FlexiSAF_wk7.controller.LeaveRequestController\""),
+                        containsString("app_service_seconds_count{class=\"com.flexisaf.FlexiSAF_wk7.service.impl.EmployeeServiceImpl\""),
+                        containsString("app_service_seconds_count{class=\"com.flexisaf.FlexiSAF_wk7.service.impl.LeaveRequestServiceImpl\""),
+                        // Connection pool usage and wait time
+                        containsString("hikaricp_connections_active"),
+                        containsString("hikaricp_connections_pending"),
+                        containsString("hikaricp_connections_acquire_seconds_count"),
+                        containsString("hikaricp_connections_usage_seconds_count"),
+                        // Hibernate session, statement and cache statistics
+                        containsString("hibernate_sessions_open_total"),
+                        containsString("hibernate_statements_total"),
+                        containsString("hibernate_cache_query_requests_total"))));
+    }
+}
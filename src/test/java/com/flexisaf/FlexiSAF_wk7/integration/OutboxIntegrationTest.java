@@ -0,0 +1,261 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.dto.OutboxMessage;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.entity.OutboxEvent.EventType;
+import com.flexisaf.FlexiSAF_wk7.outbox.OutboxDispatcher;
+import com.flexisaf.FlexiSAF_wk7.outbox.OutboxSink;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.OutboxEventRepository;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.outbox.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({TestSecurityConfig.class, OutboxIntegrationTest.SinkConfig.class})
+public class OutboxIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LeaveRequestService leaveRequestService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private RecordingSink sink;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setUp() {
+        outboxEventRepository.deleteAllInBatch();
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+        sink.reset();
+
+        employee = new Employee();
+        employee.setFirstName("Ngozi");
+        employee.setLastName("Eze");
+        employee.setEmail("ngozi.eze@flexisaf.com");
+        employee.setDepartment("Finance");
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        employee = employeeRepository.save(employee);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void testLeaveLifecycle_ShouldDeliverOneEventPerStatusChangeInOrder() throws Exception {
+        LeaveRequest leave = apply(LocalDate.now().plusDays(10));
+        mockMvc.perform(post("/api/leaves/review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "ids", List.of(leave.getId()), "status", "APPROVED", "managerComment", "Enjoy"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/leaves/{id}", leave.getId()))
+                .andExpect(status().isNoContent());
+
+        // Nothing is delivered until the dispatcher runs
+        assertTrue(sink.delivered().isEmpty());
+        assertEquals(3, outboxDispatcher.dispatch());
+
+        List<OutboxMessage> delivered = sink.delivered();
+        assertEquals(List.of(EventType.LEAVE_APPLIED, EventType.LEAVE_APPROVED, EventType.LEAVE_CANCELLED),
+                delivered.stream().map(OutboxMessage::eventType).toList());
+        assertTrue(delivered.stream().allMatch(message -> message.aggregateId().equals(leave.getId())));
+
+        JsonNode approved = objectMapper.readTree(delivered.get(1).payload());
+        assertEquals(employee.getId().longValue(), approved.get("employeeId").asLong());
+        assertEquals("PENDING", approved.get("previousStatus").asText());
+        assertEquals("APPROVED", approved.get("status").asText());
+        assertEquals("Enjoy", approved.get("managerComment").asText());
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    public void testDispatch_ShouldDeliverInBatchesOfTheConfiguredSize() {
+        for (int i = 0; i < 5; i++) {
+            apply(LocalDate.now().plusDays(10L * (i + 1)));
+        }
+
+        assertEquals(5, outboxDispatcher.dispatch());
+
+        assertEquals(List.of(2, 2, 1), sink.batchSizes());
+        assertEquals(5, sink.delivered().stream().map(OutboxMessage::id).distinct().count());
+    }
+
+    @Test
+    public void testSinkFailure_ShouldKeepEventsAndRedeliverThemNextRound() {
+        apply(LocalDate.now().plusDays(10));
+        double dispatchedBefore = meterRegistry.counter("app.outbox.dispatched").count();
+        sink.failNext(1);
+
+        assertEquals(0, outboxDispatcher.dispatch());
+        assertEquals(1, outboxEventRepository.count());
+        assertEquals(1.0, meterRegistry.get("app.outbox.pending").gauge().value());
+        assertTrue(meterRegistry.get("app.outbox.lag").timeGauge().value() >= 0);
+        assertEquals(1, meterRegistry.get("app.outbox.delivery").tag("outcome", "failure").timer().count());
+
+        assertEquals(1, outboxDispatcher.dispatch());
+        // The failed attempt saw the batch too; delivery is at least once
+        assertEquals(2, sink.delivered().size());
+        assertEquals(sink.delivered().get(0).id(), sink.delivered().get(1).id());
+        assertEquals(0, outboxEventRepository.count());
+        assertEquals(0.0, meterRegistry.get("app.outbox.pending").gauge().value());
+        assertEquals(dispatchedBefore + 1, meterRegistry.counter("app.outbox.dispatched").count());
+    }
+
+    @Test
+    public void testRejectedLeaveChange_ShouldNotWriteAnEvent() throws Exception {
+        LeaveRequest leave = apply(LocalDate.now().plusDays(10));
+        outboxDispatcher.dispatch();
+        sink.reset();
+
+        // Overlaps the first leave, so nothing is saved and nothing is published
+        mockMvc.perform(post("/api/leaves")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "employee", Map.of("id", employee.getId()),
+                                "startDate", leave.getStartDate().plusDays(1).toString(),
+                                "endDate", leave.getEndDate().plusDays(1).toString(),
+                                "leaveType", "CASUAL"))))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, outboxEventRepository.count());
+        assertEquals(0, outboxDispatcher.dispatch());
+    }
+
+    @Test
+    public void testDispatch_WhileARoundIsDelivering_ShouldSkipInsteadOfWaiting() throws Exception {
+        apply(LocalDate.now().plusDays(10));
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            List<Integer> overlapping = new CopyOnWriteArrayList<>();
+            sink.duringDelivery(() -> {
+                try {
+                    overlapping.add(other.submit(outboxDispatcher::dispatch).get(5, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            assertEquals(1, outboxDispatcher.dispatch());
+            assertEquals(List.of(0), overlapping);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    private LeaveRequest apply(LocalDate startDate) {
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employee);
+        leave.setStartDate(startDate);
+        leave.setEndDate(startDate.plusDays(2));
+        leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        return leaveRequestService.applyLeaveRequest(leave);
+    }
+
+    @TestConfiguration
+    static class SinkConfig {
+
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+
+        private final List<List<OutboxMessage>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile Runnable duringDelivery = () -> { };
+
+        @Override
+        public void deliver(List<OutboxMessage> batch) {
+            batches.add(List.copyOf(batch));
+            duringDelivery.run();
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new IllegalStateException("Sink unavailable");
+            }
+        }
+
+        void failNext(int times) {
+            failures.set(times);
+        }
+
+        void duringDelivery(Runnable action) {
+            duringDelivery = action;
+        }
+
+        void reset() {
+            batches.clear();
+            failures.set(0);
+            duringDelivery = () -> { };
+        }
+
+        List<OutboxMessage> delivered() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+
+        List<Integer> batchSizes() {
+            return batches.stream().map(List::size).toList();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.exception.QueryBudgetExceededException;
+import com.flexisaf.FlexiSAF_wk7.instrumentation.QueryBudget;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({TestSecurityConfig.class, QueryBudgetIntegrationTest.BudgetedController.class})
+public class QueryBudgetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testRequestWithinBudget_ShouldReportStatsHeaderAndMetrics() throws Exception {
+        mockMvc.perform(get("/api/test/within-budget"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Stats", startsWith("statements=1;")))
+                .andExpect(header().string("X-Query-Stats", containsString("rows=1;")));
+
+        assertNotNull(meterRegistry.find("app.request.jdbc.statements")
+                .tag("handler", "BudgetedController.withinBudget")
+                .summary());
+    }
+
+    @Test
+    public void testRequestOverBudget_ShouldFail() {
+        QueryBudgetExceededException ex = assertThrows(QueryBudgetExceededException.class,
+                () -> mockMvc.perform(get("/api/test/over-budget")));
+        assertNotNull(ex.getMessage());
+    }
+
+    @TestConfiguration
+    @RestController
+    static class BudgetedController {
+
+        private final EmployeeRepository employeeRepository;
+
+        BudgetedController(EmployeeRepository employeeRepository) {
+            this.employeeRepository = employeeRepository;
+        }
+
+        @GetMapping("/api/test/within-budget")
+        @QueryBudget(max = 1)
+        public long withinBudget() {
+            return employeeRepository.count();
+        }
+
+        @GetMapping("/api/test/over-budget")
+        @QueryBudget(max = 1)
+        public long overBudget() {
+            return employeeRepository.count() + employeeRepository.count();
+        }
+    }
+}
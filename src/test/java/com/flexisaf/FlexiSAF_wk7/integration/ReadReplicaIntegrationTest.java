@@ -0,0 +1,246 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.datasource.ReplicaHealth;
+import com.flexisaf.FlexiSAF_wk7.entity.Employee;
+import com.flexisaf.FlexiSAF_wk7.entity.LeaveRequest;
+import com.flexisaf.FlexiSAF_wk7.outbox.OutboxDispatcher;
+import com.flexisaf.FlexiSAF_wk7.repository.EmployeeRepository;
+import com.flexisaf.FlexiSAF_wk7.repository.LeaveRequestRepository;
+import com.flexisaf.FlexiSAF_wk7.service.LeaveRequestService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the application against two in-memory H2 databases, a primary and a replica. The replica gets the same
+ * schema but its own rows, so a response shows which database served it. Replication lag is whatever the test
+ * writes into {@code replication_status}.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid}",
+        "app.datasource.replica.lag-query=select lag_seconds from replication_status",
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.check-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class ReadReplicaIntegrationTest {
+
+    private static final String REPLICA_ONLY_EMAIL = "replica.only@flexisaf.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private LeaveRequestRepository leaveRequestRepository;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaHealth replicaHealth;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private LeaveRequestService leaveRequestService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+
+        Flyway.configure().dataSource(replicaDataSource).locations("classpath:db/migration/h2").load().migrate();
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("create table if not exists replication_status (lag_seconds double precision)");
+        replica.update("delete from replication_status");
+        replica.update("insert into replication_status values (0)");
+        replica.update("delete from outbox_events");
+        replica.update("delete from leave_requests");
+        replica.update("delete from employees");
+        replica.update("insert into employees (id, version, first_name, last_name, email, department, salary, active) "
+                + "values (900001, 0, 'Replica', 'Only', ?, 'IT', 0, true)", REPLICA_ONLY_EMAIL);
+
+        assertTrue(replicaHealth.check());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primary.update("delete from outbox_events");
+        leaveRequestRepository.deleteAll();
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void testReadOnlyRequests_ShouldBeServedByTheReplica() throws Exception {
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", hasItem(REPLICA_ONLY_EMAIL)));
+
+        mockMvc.perform(get("/api/employees/{id}", 900001))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Replica"));
+    }
+
+    @Test
+    public void testWrites_ShouldGoToThePrimary() throws Exception {
+        Employee employee = new Employee();
+        employee.setFirstName("Tunde");
+        employee.setLastName("Bello");
+        employee.setEmail("tunde.bello@flexisaf.com");
+        employee.setDateofHire(LocalDate.of(2024, 5, 1));
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(status().isCreated());
+
+        assertTrue(employeeRepository.existsByEmail("tunde.bello@flexisaf.com"));
+        assertFalse(employeeRepository.existsByEmail(REPLICA_ONLY_EMAIL));
+        assertEquals(0, replica.queryForObject("select count(*) from employees where email = ?", Integer.class,
+                "tunde.bello@flexisaf.com"));
+    }
+
+    @Test
+    public void testWriteAfterReadOnlyLookup_ShouldGoToThePrimary() throws Exception {
+        Employee employee = new Employee();
+        employee.setFirstName("Tunde");
+        employee.setLastName("Bello");
+        employee.setEmail("tunde.bello@flexisaf.com");
+        employee.setDepartment("IT");
+        employee.setStatus(Employee.EmploymentStatus.FULL_TIME);
+        employee.setActive(true);
+        employee = employeeRepository.save(employee);
+        LeaveRequest leave = new LeaveRequest();
+        leave.setEmployee(employee);
+        leave.setStartDate(LocalDate.now().plusDays(10));
+        leave.setEndDate(LocalDate.now().plusDays(11));
+        leave.setLeaveType(LeaveRequest.LeaveType.ANNUAL);
+        leave.setStatus(LeaveRequest.LeaveStatus.PENDING);
+        leave = leaveRequestRepository.save(leave);
+        // The same rows on the replica, so the read-only lookup is served there
+        replica.update("insert into employees (id, version, first_name, last_name, email, department, salary, active) "
+                + "values (?, 0, 'Tunde', 'Bello', ?, 'IT', 0, true)", employee.getId(), employee.getEmail());
+        replica.update("insert into leave_requests (id, version, employee_id, start_date, end_date, leave_type, status) "
+                        + "values (?, ?, ?, ?, ?, 'ANNUAL', 'PENDING')", leave.getId(), leave.getVersion(),
+                employee.getId(), leave.getStartDate(), leave.getEndDate());
+
+        // One entity manager across both calls, as open-in-view gives a request
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            leaveRequestService.getLeaveRequest(leave.getId(), false);
+            leaveRequestService.cancelLeaveRequest(leave.getId());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        assertEquals("CANCELLED", primary.queryForObject("select status from leave_requests where id = ?",
+                String.class, leave.getId()));
+        assertEquals(1, primary.queryForObject("select count(*) from outbox_events", Integer.class));
+        assertEquals("PENDING", replica.queryForObject("select status from leave_requests where id = ?",
+                String.class, leave.getId()));
+        assertEquals(0, replica.queryForObject("select count(*) from outbox_events", Integer.class));
+    }
+
+    @Test
+    public void testOutboxDispatcher_ShouldReadTheOutboxFromThePrimary() {
+        // An event the primary has already delivered and deleted, still visible on a lagging replica
+        replica.update("insert into outbox_events (id, event_type, aggregate_id, payload, created_at) "
+                + "values (1, 'LEAVE_APPLIED', 1, '{}', current_timestamp)");
+
+        assertEquals(0, outboxDispatcher.dispatch());
+        assertEquals(0.0, meterRegistry.get("app.outbox.pending").gauge().value());
+    }
+
+    @Test
+    public void testLaggingReplica_ShouldFallBackToThePrimary() throws Exception {
+        replica.update("update replication_status set lag_seconds = 60");
+        assertFalse(replicaHealth.check());
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", not(hasItem(REPLICA_ONLY_EMAIL))));
+
+        replica.update("update replication_status set lag_seconds = 1");
+        assertTrue(replicaHealth.check());
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(jsonPath("$[*].email", hasItem(REPLICA_ONLY_EMAIL)));
+    }
+
+    @Test
+    public void testFailingLagCheck_ShouldFallBackToThePrimary() throws Exception {
+        replica.execute("drop table replication_status");
+        assertFalse(replicaHealth.check());
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", not(hasItem(REPLICA_ONLY_EMAIL))));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testUnreachableReplica_ShouldFallBackToThePrimaryWithoutFailingTheRequest() throws Exception {
+        replicaDataSource.unwrap(HikariDataSource.class).close();
+
+        mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", not(hasItem(REPLICA_ONLY_EMAIL))));
+        assertFalse(replicaHealth.isUsable());
+    }
+}
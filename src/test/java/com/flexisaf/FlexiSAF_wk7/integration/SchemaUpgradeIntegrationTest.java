@@ -0,0 +1,103 @@
+package com.flexisaf.FlexiSAF_wk7.integration;
+
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Starts the application on a database created by {@code ddl-auto=update} before the Flyway migrations, so it is
+ * baselined at V1 and must be upgraded by the later migrations before Hibernate validates it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + SchemaUpgradeIntegrationTest.URL,
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class SchemaUpgradeIntegrationTest {
+
+    static final String URL = "jdbc:h2:mem:pre-migration;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // The schema Hibernate generated for the original entities: identity ids and no version columns
+    @BeforeAll
+    public static void createPreMigrationSchema() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(URL);
+        dataSource.setUser("sa");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("""
+                create table employees (
+                    id bigint generated by default as identity,
+                    active boolean not null,
+                    address clob,
+                    dateof_hire date,
+                    department varchar(255),
+                    email varchar(255) not null unique,
+                    first_name varchar(50) not null,
+                    last_name varchar(50) not null,
+                    phone_number varchar(20),
+                    position varchar(255),
+                    salary float(53) not null,
+                    status enum ('FULL_TIME', 'PART_TIME', 'CONTRACT'),
+                    primary key (id)
+                )""");
+        jdbc.execute("""
+                create table leave_requests (
+                    id bigint generated by default as identity,
+                    date_applied date,
+                    date_reviewed date,
+                    employee_id bigint not null,
+                    end_date date not null,
+                    leave_type enum ('CASUAL', 'SICK', 'MATERNITY', 'ANNUAL', 'STUDY') not null,
+                    manager_comment varchar(500),
+                    reason varchar(500),
+                    start_date date not null,
+                    status enum ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED'),
+                    primary key (id),
+                    foreign key (employee_id) references employees
+                )""");
+        for (int i = 1; i <= 3; i++) {
+            jdbc.update("insert into employees (active, email, first_name, last_name, salary, status) " +
+                    "values (true, ?, 'Existing', 'Employee', 50000, 'FULL_TIME')", "existing" + i + "@flexisaf.com");
+        }
+    }
+
+    @Test
+    public void testUpgradedDatabase_ShouldKeepExistingEmployeesAndIssueFreshIds() throws Exception {
+        mockMvc.perform(get("/api/employees/{id}", 3))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("existing3@flexisaf.com")))
+                .andExpect(jsonPath("$.version", is(0)));
+
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"firstName": "New", "lastName": "Hire", "email": "new.hire@flexisaf.com",
+                                 "department": "IT", "position": "Engineer", "salary": 50000,
+                                 "dateofHire": "2024-01-15", "status": "FULL_TIME", "active": true}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", greaterThan(3)));
+    }
+}
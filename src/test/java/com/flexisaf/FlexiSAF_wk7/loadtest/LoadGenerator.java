@@ -0,0 +1,189 @@
+package com.flexisaf.FlexiSAF_wk7.loadtest;
+
+import com.flexisaf.FlexiSAF_wk7.loadtest.LoadProfile.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model load: requests are started on a fixed schedule whether or not earlier ones have finished, each on
+ * its own virtual thread. Latency is measured from the scheduled start, so a stalled server shows up as queueing
+ * delay instead of silently lowering the offered rate (no coordinated omission). Latencies are recorded in
+ * microseconds.
+ */
+class LoadGenerator {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final int SEED_EMPLOYEES = 200;
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong emails = new AtomicLong();
+    private final List<Long> employeeIds = new ArrayList<>();
+    // Next free two-day slot per seeded employee, so applied leaves never overlap
+    private final AtomicLongArray leaveSlots = new AtomicLongArray(SEED_EMPLOYEES);
+    private final Queue<Long> pendingLeaves = new ConcurrentLinkedQueue<>();
+
+    LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    void seed() throws Exception {
+        for (int i = 0; i < SEED_EMPLOYEES; i++) {
+            employeeIds.add(id(send(createEmployee())));
+        }
+    }
+
+    /**
+     * Offers {@code profile.ratePerSecond()} requests per second for {@code duration} and waits for the stragglers.
+     */
+    void run(LoadProfile profile, Duration duration) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / profile.ratePerSecond();
+        long requests = duration.toNanos() / interval;
+        int totalWeight = profile.totalWeight();
+        Semaphore inFlight = new Semaphore(profile.maxInFlight());
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            for (long i = 0; i < requests; i++) {
+                long scheduled = start + i * interval;
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+                Operation operation = profile.pick(ThreadLocalRandom.current().nextInt(totalWeight));
+                if (!inFlight.tryAcquire()) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                clients.execute(() -> {
+                    try {
+                        execute(operation, scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(count -> count.set(0));
+        dropped.set(0);
+    }
+
+    Map<Operation, Histogram> histograms() {
+        return histograms;
+    }
+
+    long errors(Operation operation) {
+        return errors.get(operation).get();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    private void execute(Operation operation, long scheduled) {
+        try {
+            HttpResponse<String> response = switch (operation) {
+                case CREATE_EMPLOYEE -> send(createEmployee());
+                case APPLY_LEAVE -> applyLeave();
+                case REVIEW_LEAVE -> reviewLeave();
+                case LIST_LEAVES -> send(get("/api/leaves?limit=50"));
+            };
+            if (response.statusCode() >= 400) {
+                errors.get(operation).incrementAndGet();
+            }
+        } catch (Exception ex) {
+            errors.get(operation).incrementAndGet();
+        }
+        histograms.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+    }
+
+    // SICK leave has no entitlement by default, so a long run cannot exhaust the balance and turn applies into 400s
+    private HttpResponse<String> applyLeave() throws Exception {
+        int employee = ThreadLocalRandom.current().nextInt(SEED_EMPLOYEES);
+        LocalDate start = LocalDate.of(2030, 1, 1).plusDays(2 * leaveSlots.getAndIncrement(employee));
+        HttpResponse<String> response = send(post("/api/leaves", """
+                {"employee": {"id": %d}, "startDate": "%s", "endDate": "%s", "leaveType": "SICK", "reason": "Load test"}
+                """.formatted(employeeIds.get(employee), start, start)));
+        if (response.statusCode() == 201) {
+            pendingLeaves.add(id(response));
+        }
+        return response;
+    }
+
+    // Reviews a leave applied earlier in the run, or applies one if none is waiting yet
+    private HttpResponse<String> reviewLeave() throws Exception {
+        Long id = pendingLeaves.poll();
+        if (id == null) {
+            return applyLeave();
+        }
+        return send(post("/api/leaves/review", """
+                {"ids": [%d], "status": "APPROVED", "managerComment": "Load test"}
+                """.formatted(id)));
+    }
+
+    private HttpRequest createEmployee() {
+        long n = emails.incrementAndGet();
+        return post("/api/employees", """
+                {"firstName": "Load", "lastName": "Tester%d", "email": "load%d@flexisaf.com", "phoneNumber": "0803%d",
+                 "department": "Dept%d", "position": "Engineer", "salary": 50000, "dateofHire": "2024-01-15",
+                 "status": "FULL_TIME", "active": true, "address": "12 Allen Avenue, Ikeja, Lagos"}
+                """.formatted(n, n, n % 10_000, n % 10));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long id(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() >= 400 || !matcher.find()) {
+            throw new IllegalStateException("Unexpected response " + response.statusCode() + ": " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.flexisaf.FlexiSAF_wk7.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * What to replay: an open-model arrival rate, how long to warm up and measure, and the weighted mix of operations.
+ * Every value can be overridden with a {@code -Dloadtest.*} system property.
+ */
+record LoadProfile(int ratePerSecond, Duration warmup, Duration duration, Map<Operation, Integer> mix,
+                   int maxInFlight) {
+
+    enum Operation {
+        CREATE_EMPLOYEE, APPLY_LEAVE, REVIEW_LEAVE, LIST_LEAVES
+    }
+
+    private static final String DEFAULT_MIX = "CREATE_EMPLOYEE:10,APPLY_LEAVE:25,REVIEW_LEAVE:15,LIST_LEAVES:50";
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("loadtest.rate", 50),
+                Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s")),
+                Duration.parse("PT" + System.getProperty("loadtest.duration", "60s")),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Integer.getInteger("loadtest.max-in-flight", 2000));
+    }
+
+    Operation pick(int roll) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Roll outside the mix weights");
+    }
+
+    int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    String describe() {
+        return "rate=" + ratePerSecond + "/s;duration=" + duration.toSeconds() + "s;mix=" + mix.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    void writeTo(Properties properties) {
+        properties.setProperty("profile", describe());
+    }
+
+    // Latencies are only comparable under the same load
+    boolean matches(Properties properties) {
+        return describe().equals(properties.getProperty("profile"));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            weights.put(Operation.valueOf(entry[0].trim()), Integer.parseInt(entry[1].trim()));
+        }
+        return weights;
+    }
+}
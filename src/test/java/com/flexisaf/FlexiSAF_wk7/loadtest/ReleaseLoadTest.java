@@ -0,0 +1,138 @@
+package com.flexisaf.FlexiSAF_wk7.loadtest;
+
+import com.flexisaf.FlexiSAF_wk7.config.TestSecurityConfig;
+import com.flexisaf.FlexiSAF_wk7.loadtest.LoadProfile.Operation;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on the H2 test profile with a real HTTP port and replays the {@link LoadProfile} against
+ * it. Prints p50/p99/p99.9 and throughput per operation and for all operations together, writes the full HDR
+ * percentile distributions to {@code target/loadtest}, and fails if a percentile is more than
+ * {@code loadtest.tolerance} worse than the baseline recorded for the same profile in
+ * {@code src/test/resources/loadtest/baseline.properties}. A percentile is only kept and compared when at least
+ * {@value #MIN_TAIL_SAMPLES} requests lie beyond it; above that it is decided by one or two outliers.
+ *
+ * <p>Run it with {@code mvn test -Ploadtest}; add {@code -Dloadtest.record-baseline=true} to store the run as the
+ * new baseline instead of comparing against it.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN"
+})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class ReleaseLoadTest {
+
+    private static final Path BASELINE = Path.of("src/test/resources/loadtest/baseline.properties");
+    private static final Path RESULTS = Path.of("target/loadtest");
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p99", "p999"};
+    private static final int MIN_TAIL_SAMPLES = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void replayReleaseMix() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.5"));
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + port);
+
+        generator.seed();
+        generator.run(profile, profile.warmup());
+        generator.reset();
+        generator.run(profile, profile.duration());
+
+        Properties measured = report(profile, generator);
+        if (Boolean.getBoolean("loadtest.record-baseline")) {
+            try (Writer writer = Files.newBufferedWriter(BASELINE)) {
+                measured.store(writer, "Latency baseline in ms, recorded with -Dloadtest.record-baseline=true");
+            }
+            System.out.println("Recorded new baseline in " + BASELINE);
+            return;
+        }
+        compare(profile, measured, tolerance);
+    }
+
+    private Properties report(LoadProfile profile, LoadGenerator generator) throws Exception {
+        Files.createDirectories(RESULTS);
+        Properties measured = new Properties();
+        profile.writeTo(measured);
+        System.out.printf("Load test %s%n", profile.describe());
+        System.out.printf("  %-16s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        Histogram all = new Histogram(3);
+        for (Map.Entry<Operation, Histogram> entry : generator.histograms().entrySet()) {
+            Operation operation = entry.getKey();
+            all.add(entry.getValue());
+            report(profile, measured, operation.name(), entry.getValue(), generator.errors(operation));
+        }
+        report(profile, measured, "ALL", all, 0);
+        assertTrue(generator.dropped() == 0, generator.dropped() + " requests were dropped at the in-flight cap");
+        return measured;
+    }
+
+    private void report(LoadProfile profile, Properties measured, String name, Histogram histogram, long errors)
+            throws Exception {
+        long count = histogram.getTotalCount();
+        System.out.printf("  %-16s %8d %8d %10.1f", name, count, errors, count / (double) profile.duration().toSeconds());
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double millis = histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0;
+            if (count * (100 - PERCENTILES[i]) / 100 >= MIN_TAIL_SAMPLES) {
+                measured.setProperty(name + "." + PERCENTILE_KEYS[i], String.format("%.3f", millis));
+            }
+            System.out.printf(" %10.2f", millis);
+        }
+        System.out.println();
+        assertTrue(errors <= count / 100, name + " failed more than 1% of requests");
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(RESULTS.resolve(name + ".hgrm")))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private void compare(LoadProfile profile, Properties measured, double tolerance) throws Exception {
+        Properties baseline = new Properties();
+        if (Files.exists(BASELINE)) {
+            try (Reader reader = Files.newBufferedReader(BASELINE)) {
+                baseline.load(reader);
+            }
+        }
+        if (!profile.matches(baseline)) {
+            System.out.println("No baseline recorded for this profile; nothing to compare against");
+            return;
+        }
+        List<String> regressions = new ArrayList<>();
+        for (String key : measured.stringPropertyNames()) {
+            String expected = baseline.getProperty(key);
+            if (key.equals("profile") || expected == null) {
+                continue;
+            }
+            double limit = Double.parseDouble(expected) * (1 + tolerance);
+            double actual = Double.parseDouble(measured.getProperty(key));
+            if (actual > limit) {
+                regressions.add(String.format("%s: %.2f ms, baseline %s ms", key, actual, expected));
+            }
+        }
+        assertTrue(regressions.isEmpty(), "Latency regressed past the baseline: " + regressions);
+    }
+}